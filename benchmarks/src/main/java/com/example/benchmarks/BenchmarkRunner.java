@@ -0,0 +1,29 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.List;
+
+/**
+ * Entry point of {@code benchmarks.jar}: JMH's own, with the GC profiler added unless another
+ * profiler is chosen, so every run reports allocation per operation alongside time.
+ */
+public final class BenchmarkRunner {
+    
+    private static final List<String> NO_DEFAULT_PROFILER = List.of("-prof", "-h", "-l", "-lp", "-lprof", "-lrf");
+    
+    private BenchmarkRunner() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        if (List.of(args).stream().anyMatch(NO_DEFAULT_PROFILER::contains)) {
+            Main.main(args);
+            return;
+        }
+        String[] withProfiler = new String[args.length + 2];
+        withProfiler[0] = "-prof";
+        withProfiler[1] = "gc";
+        System.arraycopy(args, 0, withProfiler, 2, args.length);
+        Main.main(withProfiler);
+    }
+}
@@ -0,0 +1,97 @@
+package com.example.benchmarks;
+
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import brave.sampler.Sampler;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of recording one error on the current span: the former {@code ServiceBController.tagError}
+ * (four {@code currentSpan()} lookups), the same plus the counter lookup it would need to also
+ * count the error, and {@link ErrorTagger}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ErrorTaggingBenchmark {
+    
+    private Tracing tracing;
+    
+    private Tracer tracer;
+    
+    private MeterRegistry meterRegistry;
+    
+    private ErrorTagger errorTagger;
+    
+    private Span span;
+    
+    private Tracer.SpanInScope scope;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracing = Tracing.newBuilder()
+            .sampler(Sampler.ALWAYS_SAMPLE)
+            .addSpanHandler(new SpanHandler() {
+                // Finished spans are discarded; without a handler Brave logs every span
+            })
+            .build();
+        tracer = new BraveTracer(tracing.tracer(),
+            new BraveCurrentTraceContext(tracing.currentTraceContext()), new BraveBaggageManager());
+        meterRegistry = new SimpleMeterRegistry();
+        errorTagger = new ErrorTagger(tracer, meterRegistry);
+        span = tracer.nextSpan().name("http get /order/{orderid}").start();
+        scope = tracer.withSpan(span);
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        scope.close();
+        span.end();
+        tracing.close();
+    }
+    
+    @Benchmark
+    public void currentSpanPerTag() {
+        if (tracer.currentSpan() != null) {
+            tracer.currentSpan().tag("error", "true");
+            tracer.currentSpan().tag("error.type", "timeout");
+            tracer.currentSpan().tag("error.message", "Order processing timeout exceeded");
+        }
+    }
+    
+    @Benchmark
+    public void currentSpanPerTagWithCounterLookup() {
+        currentSpanPerTag();
+        meterRegistry.counter("service.errors", "type", "timeout").increment();
+    }
+    
+    @Benchmark
+    public void errorTagger() {
+        errorTagger.tag(ErrorType.TIMEOUT, "Order processing timeout exceeded");
+    }
+}
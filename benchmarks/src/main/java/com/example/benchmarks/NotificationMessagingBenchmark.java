@@ -0,0 +1,106 @@
+package com.example.benchmarks;
+
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationFormat;
+import com.example.notification.NotificationMessageConverter;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationStatus;
+import com.example.notification.NotificationType;
+import com.example.serviced.CompiledTemplate;
+import com.example.serviced.NotificationTemplateProperties;
+import com.example.serviced.TemplateRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-notification cost on the messaging path: the {@code NotificationMessageConverter} every
+ * producer and Service D use for the notification queues, writing either format, and the
+ * template lookup and render behind {@code ServiceDController.personalizeMessage}. Run with
+ * {@code -prof gc} to compare allocation per message.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NotificationMessagingBenchmark {
+    
+    @Param({"JSON", "BINARY"})
+    private NotificationFormat format;
+    
+    private MessageConverter converter;
+    
+    private NotificationRequest request;
+    
+    private Message message;
+    
+    private TemplateRegistry templateRegistry;
+    
+    private CompiledTemplate template;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        converter = new NotificationMessageConverter(new Jackson2JsonMessageConverter(), format);
+        request = new NotificationRequest("ORD-20251110-000042", NotificationType.ORDER_CREATED,
+            NotificationStatus.CREATED, NotificationChannel.EMAIL, true);
+        message = consumable(converter.toMessage(request, new MessageProperties()));
+        
+        NotificationTemplateProperties properties = new NotificationTemplateProperties();
+        properties.getDefinitions().put("ORDER_CREATED", "Dear Customer, your order {{orderId}} has been created "
+            + "and will be confirmed by {{channel}} once it is {{status}}");
+        templateRegistry = new TemplateRegistry(properties, new SimpleMeterRegistry());
+        template = templateRegistry.get(request.getType());
+    }
+    
+    @Benchmark
+    public Message serialize() {
+        return converter.toMessage(request, new MessageProperties());
+    }
+    
+    @Benchmark
+    public Object deserialize() {
+        return converter.fromMessage(message);
+    }
+    
+    @Benchmark
+    public Object roundTrip() {
+        return converter.fromMessage(consumable(converter.toMessage(request, new MessageProperties())));
+    }
+    
+    @Benchmark
+    public String renderTemplate() {
+        return templateRegistry.render(template, request);
+    }
+    
+    @Benchmark
+    public String personalize() {
+        return templateRegistry.render(templateRegistry.get(request.getType()), request);
+    }
+    
+    /**
+     * Converts by the listener's parameter type, as {@code @RabbitListener} methods do, rather than
+     * by the producer's {@code __TypeId__} header.
+     */
+    private static Message consumable(Message message) {
+        message.getMessageProperties().setInferredArgumentType(NotificationRequest.class);
+        return message;
+    }
+}
@@ -0,0 +1,134 @@
+package com.example.benchmarks;
+
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import brave.sampler.Sampler;
+import com.example.common.observation.ObservedMethodAspect;
+import io.micrometer.core.instrument.observation.DefaultMeterObservationHandler;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+import io.micrometer.observation.aop.ObservedAspect;
+import io.micrometer.tracing.brave.bridge.BraveBaggageManager;
+import io.micrometer.tracing.brave.bridge.BraveCurrentTraceContext;
+import io.micrometer.tracing.brave.bridge.BraveTracer;
+import io.micrometer.tracing.handler.DefaultTracingObservationHandler;
+import org.aspectj.lang.Aspects;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-span cost of the ways a method can be observed: Micrometer's proxy-based
+ * {@code ObservedAspect}, the compile-time woven {@link ObservedMethodAspect} on a private
+ * method called through {@code this}, and the Observation API called directly. Run with
+ * {@code -prof gc} to compare allocation per call.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ObservedInstrumentationBenchmark {
+    
+    private Tracing tracing;
+    
+    private ObservationRegistry observationRegistry;
+    
+    private Operations plain;
+    
+    private Operations proxied;
+    
+    private WovenOperations woven;
+    
+    private long seed = 42;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        tracing = Tracing.newBuilder()
+            .sampler(Sampler.ALWAYS_SAMPLE)
+            .addSpanHandler(new SpanHandler() {
+                // Finished spans are discarded; without a handler Brave logs every span
+            })
+            .build();
+        BraveTracer tracer = new BraveTracer(tracing.tracer(),
+            new BraveCurrentTraceContext(tracing.currentTraceContext()), new BraveBaggageManager());
+        observationRegistry = ObservationRegistry.create();
+        observationRegistry.observationConfig()
+            .observationHandler(new DefaultMeterObservationHandler(new SimpleMeterRegistry()))
+            .observationHandler(new DefaultTracingObservationHandler(tracer));
+        
+        plain = new Operations();
+        AspectJProxyFactory proxyFactory = new AspectJProxyFactory(new Operations());
+        proxyFactory.addAspect(new ObservedAspect(observationRegistry));
+        proxied = proxyFactory.getProxy();
+        
+        Aspects.aspectOf(ObservedMethodAspect.class).setObservationRegistry(observationRegistry);
+        woven = new WovenOperations();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Aspects.aspectOf(ObservedMethodAspect.class).setObservationRegistry(ObservationRegistry.NOOP);
+        tracing.close();
+    }
+    
+    @Benchmark
+    public long unobserved() {
+        return plain.compute(seed);
+    }
+    
+    @Benchmark
+    public long springAopObservedAspect() {
+        return proxied.compute(seed);
+    }
+    
+    @Benchmark
+    public long compileTimeWovenPrivateMethod() {
+        return woven.compute(seed);
+    }
+    
+    @Benchmark
+    public long observationApi() {
+        return Observation.createNotStarted("benchmark.compute", observationRegistry)
+            .observe(() -> plain.compute(seed));
+    }
+    
+    /**
+     * Observed at class level so only the Spring AOP proxy instruments it; the woven aspect
+     * matches annotated methods only.
+     */
+    @Observed(name = "benchmark.compute")
+    public static class Operations {
+        
+        public long compute(long value) {
+            return Long.rotateLeft(value * 0x9E3779B97F4A7C15L, 17) ^ value;
+        }
+    }
+    
+    public static class WovenOperations {
+        
+        public long compute(long value) {
+            return observedCompute(value);
+        }
+        
+        @Observed(name = "benchmark.compute")
+        private long observedCompute(long value) {
+            return Long.rotateLeft(value * 0x9E3779B97F4A7C15L, 17) ^ value;
+        }
+    }
+}
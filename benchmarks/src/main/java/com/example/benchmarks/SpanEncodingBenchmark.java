@@ -0,0 +1,113 @@
+package com.example.benchmarks;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import zipkin2.Endpoint;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.BytesMessageEncoder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Per-span cost of encoding an export batch as JSON or proto3: one array per span joined into a
+ * message, as Boot's {@code AsyncReporter} does, against the whole batch encoded into a reused
+ * buffer, as {@code AsyncSpanExporter} does. Bytes per span, raw and gzipped, are printed at
+ * setup. Run with {@code -prof gc} to compare allocation per span.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SpanEncodingBenchmark {
+    
+    private static final int BATCH_SIZE = 100;
+    
+    @Param({"JSON_V2", "PROTO3"})
+    private String encoding;
+    
+    private SpanBytesEncoder encoder;
+    
+    private BytesMessageEncoder messageEncoder;
+    
+    private List<Span> batch;
+    
+    private byte[] buffer;
+    
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        encoder = SpanBytesEncoder.valueOf(encoding);
+        messageEncoder = BytesMessageEncoder.forEncoding(encoder.encoding());
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            batch.add(serverSpan(i));
+        }
+        buffer = new byte[64 * 1024];
+        
+        int length = encoder.encodeList(batch, buffer, 0);
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(buffer, 0, length);
+        }
+        System.out.printf("%n%s: %d bytes/span encoded, %d bytes/span gzipped%n",
+            encoding, length / BATCH_SIZE, compressed.size() / BATCH_SIZE);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public byte[] arrayPerSpan() {
+        List<byte[]> encoded = new ArrayList<>(BATCH_SIZE);
+        for (Span span : batch) {
+            encoded.add(encoder.encode(span));
+        }
+        return messageEncoder.encode(encoded);
+    }
+    
+    @Benchmark
+    @OperationsPerInvocation(BATCH_SIZE)
+    public int reusedBuffer() {
+        return encoder.encodeList(batch, buffer, 0);
+    }
+    
+    /**
+     * Shaped like the {@code /api/order} server span service-a reports.
+     */
+    private static Span serverSpan(int index) {
+        long timestamp = 1_700_000_000_000_000L + index * 1_000L;
+        return Span.newBuilder()
+            .traceId(String.format("6ad2861a9f087340%016x", index + 1))
+            .id(String.format("40f155da%08x", index + 1))
+            .parentId(String.format("c273beb2%08x", index + 1))
+            .kind(Span.Kind.SERVER)
+            .name("http get /api/order/{orderid}")
+            .timestamp(timestamp)
+            .duration(182_000L + index)
+            .localEndpoint(Endpoint.newBuilder().serviceName("service-a").ip("10.0.0.12").port(8080).build())
+            .remoteEndpoint(Endpoint.newBuilder().ip("10.0.0.7").port(53122).build())
+            .putTag("exception", "none")
+            .putTag("http.url", "/api/order/order-" + index)
+            .putTag("method", "GET")
+            .putTag("outcome", "SUCCESS")
+            .putTag("status", "200")
+            .putTag("uri", "/api/order/{orderId}")
+            .build();
+    }
+}
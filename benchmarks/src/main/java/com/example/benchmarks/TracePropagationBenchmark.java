@@ -0,0 +1,120 @@
+package com.example.benchmarks;
+
+import brave.Tracing;
+import brave.handler.SpanHandler;
+import brave.propagation.B3Propagation;
+import brave.propagation.Propagation;
+import brave.propagation.TraceContext;
+import brave.propagation.TraceContextOrSamplingFlags;
+import brave.sampler.Sampler;
+import io.micrometer.tracing.brave.bridge.W3CPropagation;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.http.HttpHeaders;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of writing the trace context into an outgoing request and reading it back on the other
+ * side, for the headers {@code RestTemplate} sends and the message properties
+ * {@code RabbitTemplate} publishes. {@code B3} is the single {@code b3} header Boot injects for
+ * {@code management.tracing.propagation.type=b3}, {@code W3C} is Boot's default
+ * {@code traceparent}. Injection includes creating the carrier, as each request does.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TracePropagationBenchmark {
+    
+    @Param({"B3", "B3_MULTI", "W3C"})
+    private String format;
+    
+    private Tracing tracing;
+    
+    private TraceContext context;
+    
+    private TraceContext.Injector<HttpHeaders> httpInjector;
+    
+    private TraceContext.Extractor<HttpHeaders> httpExtractor;
+    
+    private TraceContext.Injector<MessageProperties> amqpInjector;
+    
+    private TraceContext.Extractor<MessageProperties> amqpExtractor;
+    
+    private HttpHeaders injectedHeaders;
+    
+    private MessageProperties injectedProperties;
+    
+    @Setup(Level.Trial)
+    public void setUp() {
+        Propagation.Factory factory = switch (format) {
+            case "B3" -> B3Propagation.newFactoryBuilder().injectFormat(B3Propagation.Format.SINGLE_NO_PARENT).build();
+            case "B3_MULTI" -> B3Propagation.newFactoryBuilder().injectFormat(B3Propagation.Format.MULTI).build();
+            default -> new W3CPropagation();
+        };
+        tracing = Tracing.newBuilder()
+            .sampler(Sampler.ALWAYS_SAMPLE)
+            .propagationFactory(factory)
+            .addSpanHandler(new SpanHandler() {
+                // Finished spans are discarded; without a handler Brave logs every span
+            })
+            .build();
+        context = tracing.tracer().nextSpan().context();
+        
+        Propagation<String> propagation = tracing.propagation();
+        httpInjector = propagation.injector(HttpHeaders::set);
+        httpExtractor = propagation.extractor(HttpHeaders::getFirst);
+        amqpInjector = propagation.injector(MessageProperties::setHeader);
+        amqpExtractor = propagation.extractor((properties, key) -> {
+            Object value = properties.getHeader(key);
+            return value == null ? null : value.toString();
+        });
+        
+        injectedHeaders = injectHttpHeaders();
+        injectedProperties = injectAmqpHeaders();
+    }
+    
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        tracing.close();
+    }
+    
+    @Benchmark
+    public HttpHeaders injectHttpHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        httpInjector.inject(context, headers);
+        return headers;
+    }
+    
+    @Benchmark
+    public TraceContextOrSamplingFlags extractHttpHeaders() {
+        return httpExtractor.extract(injectedHeaders);
+    }
+    
+    @Benchmark
+    public MessageProperties injectAmqpHeaders() {
+        MessageProperties properties = new MessageProperties();
+        amqpInjector.inject(context, properties);
+        return properties;
+    }
+    
+    @Benchmark
+    public TraceContextOrSamplingFlags extractAmqpHeaders() {
+        return amqpExtractor.extract(injectedProperties);
+    }
+}
@@ -0,0 +1,64 @@
+#!/bin/bash
+
+# Side-by-side load comparison of Service A's servlet (Tomcat + RestTemplate)
+# and reactive (Netty + WebClient) stacks.
+#
+# Requires services B, C, D, RabbitMQ and Zipkin to be running (see rebuild-all.sh)
+# and the `hey` load generator (https://github.com/rakyll/hey) on the PATH.
+
+set -e
+
+DURATION=${DURATION:-30s}
+CONCURRENCY=${CONCURRENCY:-400}
+TOMCAT_THREADS=${TOMCAT_THREADS:-200}
+JAR=service-a/target/service-a-1.0.0-exec.jar
+
+# Colors for output
+GREEN='\033[0;32m'
+YELLOW='\033[1;33m'
+NC='\033[0m' # No Color
+
+if ! command -v hey > /dev/null; then
+    echo "hey is required: go install github.com/rakyll/hey@latest"
+    exit 1
+fi
+
+echo -e "${YELLOW}Building service-a...${NC}"
+(cd service-a && mvn -q clean package -DskipTests)
+
+pkill -f "spring-boot:run.*service-a" || true
+pkill -f "$JAR" || true
+sleep 3
+
+run_stack() {
+    local label=$1
+    shift
+
+    echo ""
+    echo "========================================="
+    echo -e "${GREEN}${label}${NC}"
+    echo "========================================="
+
+    java -jar "$JAR" --logging.level.root=WARN "$@" > "service-a-${label}.log" 2>&1 &
+    local pid=$!
+
+    until curl -s http://localhost:8080/health > /dev/null; do
+        sleep 1
+    done
+
+    # Warm up JIT, connection pools and the RabbitMQ channel cache
+    hey -z 10s -c 50 http://localhost:8080/api/order/warmup > /dev/null
+
+    hey -z "$DURATION" -c "$CONCURRENCY" http://localhost:8080/api/order/load-test \
+        | grep -E "Requests/sec|Average|Slowest|99% in|Status code|\[[0-9]+\]"
+
+    kill $pid
+    wait $pid 2> /dev/null || true
+    sleep 3
+}
+
+run_stack "servlet" "--server.tomcat.threads.max=${TOMCAT_THREADS}"
+run_stack "reactive" "--spring.profiles.active=reactive"
+
+echo ""
+echo "Duration: ${DURATION}, concurrency: ${CONCURRENCY}, Tomcat threads: ${TOMCAT_THREADS}"
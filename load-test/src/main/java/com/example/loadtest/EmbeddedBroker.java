@@ -0,0 +1,39 @@
+package com.example.loadtest;
+
+import org.apache.qpid.server.SystemLauncher;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * In-memory AMQP 0-9-1 broker standing in for RabbitMQ, listening on localhost only. Queues and
+ * exchanges the services declare live until the harness exits.
+ */
+final class EmbeddedBroker implements AutoCloseable {
+    
+    private final SystemLauncher launcher = new SystemLauncher();
+    
+    void start(int port) throws Exception {
+        Path workDir = Files.createTempDirectory("load-test-broker");
+        Map<String, Object> attributes = new HashMap<>();
+        attributes.put("type", "Memory");
+        attributes.put("initialConfigurationLocation",
+            EmbeddedBroker.class.getResource("/qpid-config.json").toExternalForm());
+        // Qpid's defaults are classpath: URLs, which resolve only when Qpid is on the system class path.
+        attributes.put("initialSystemPropertiesLocation",
+            EmbeddedBroker.class.getResource("/qpid-system.properties").toExternalForm());
+        attributes.put("startupLoggedToSystemOut", false);
+        attributes.put("context", Map.of(
+            "qpid.amqp_port", String.valueOf(port),
+            "qpid.work_dir", workDir.toString()
+        ));
+        launcher.startup(attributes);
+    }
+    
+    @Override
+    public void close() {
+        launcher.shutdown();
+    }
+}
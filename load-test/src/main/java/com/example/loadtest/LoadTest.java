@@ -0,0 +1,192 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Offline end-to-end load test: starts an in-memory AMQP broker, a Zipkin stand-in and the four
+ * services in this JVM, drives Service A at a fixed arrival rate and reports throughput, request
+ * latency and notification lag through Service D. Needs only the built service jars and loopback.
+ *
+ * <pre>
+ * java -jar load-test/target/load-test.jar --rate 20 --duration 60s --warmup 15s
+ * </pre>
+ */
+public final class LoadTest {
+    
+    private static final String[] SERVICES = {"service-d", "service-c", "service-b", "service-a"};
+    
+    private static final int[] SERVICE_PORTS = {8083, 8082, 8081, 8080};
+    
+    private static final String USAGE = """
+        Usage: load-test [--rate N] [--duration DURATION] [--warmup DURATION] [--trace-rate N]
+                         [--services-dir PATH] [--amqp-port N] [--zipkin-port N] [--request-timeout DURATION]
+          
+          --rate N                     requests per second to /api/order/{id} (default 20)
+          --duration DURATION          measured run, e.g. 60s, 5m (default 60s)
+          --warmup DURATION            unmeasured run before it at the same rate (default 15s)
+          --trace-rate N               /api/order traces sampled per second; notification lag
+                                       is measured on these (default 20)
+          --services-dir PATH          project root holding service-*/target/*-exec.jar (default .)
+          --amqp-port N                port of the embedded broker (default 5672)
+          --zipkin-port N              port of the Zipkin stand-in (default 9411)
+          --request-timeout DURATION   requests slower than this count as failed (default 30s)
+        
+        Services keep their own configuration otherwise; they listen on ports 8080-8083.
+        """;
+    
+    private LoadTest() {
+    }
+    
+    public static void main(String[] args) throws Exception {
+        int rate = 20;
+        Duration duration = Duration.ofSeconds(60);
+        Duration warmup = Duration.ofSeconds(15);
+        int traceRate = 20;
+        Path servicesDir = Path.of(".");
+        int amqpPort = 5672;
+        int zipkinPort = 9411;
+        Duration requestTimeout = Duration.ofSeconds(30);
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--rate" -> rate = Integer.parseInt(args[++i]);
+                    case "--duration" -> duration = parseDuration(args[++i]);
+                    case "--warmup" -> warmup = parseDuration(args[++i]);
+                    case "--trace-rate" -> traceRate = Integer.parseInt(args[++i]);
+                    case "--services-dir" -> servicesDir = Path.of(args[++i]);
+                    case "--amqp-port" -> amqpPort = Integer.parseInt(args[++i]);
+                    case "--zipkin-port" -> zipkinPort = Integer.parseInt(args[++i]);
+                    case "--request-timeout" -> requestTimeout = parseDuration(args[++i]);
+                    case "--help", "-h" -> {
+                        System.out.print(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+            if (rate < 1) {
+                throw new IllegalArgumentException("--rate must be at least 1");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        
+        List<Integer> ports = new ArrayList<>(List.of(amqpPort, zipkinPort));
+        for (int port : SERVICE_PORTS) {
+            ports.add(port);
+        }
+        for (int port : ports) {
+            if (!isFree(port)) {
+                System.err.println("Port " + port + " is in use; stop the running stack or choose another port");
+                System.exit(1);
+            }
+        }
+        
+        // Services run on non-daemon threads, so a failure has to end the JVM explicitly.
+        try {
+            NotificationLag notificationLag = new NotificationLag();
+            EmbeddedBroker broker = new EmbeddedBroker();
+            ZipkinStub zipkin = new ZipkinStub(notificationLag);
+            broker.start(amqpPort);
+            zipkin.start(zipkinPort);
+            log("Broker on port %d, Zipkin stand-in on port %d", amqpPort, zipkinPort);
+            
+            List<String> serviceArgs = List.of(
+                "--logging.level.root=WARN",
+                "--spring.rabbitmq.host=localhost",
+                "--spring.rabbitmq.port=" + amqpPort,
+                "--management.zipkin.tracing.endpoint=http://localhost:" + zipkinPort + "/api/v2/spans",
+                "--tracing.sampling.endpoints[/api/order]=" + traceRate,
+                // Tail sampling would add slow traces to the sample and skew the lag percentiles.
+                "--tracing.sampling.tail.enabled=false",
+                "--tracing.export.spool.enabled=false"
+            );
+            for (int i = 0; i < SERVICES.length; i++) {
+                String service = SERVICES[i];
+                long started = System.nanoTime();
+                Path jar = servicesDir.resolve(service).resolve("target").resolve(service + "-1.0.0-exec.jar");
+                ServiceLauncher.start(service, jar, serviceArgs);
+                ServiceLauncher.awaitHealthy(service, SERVICE_PORTS[i], Duration.ofMinutes(2));
+                log("%s up on port %d in %.1fs", service, SERVICE_PORTS[i], (System.nanoTime() - started) / 1e9);
+            }
+            
+            OpenLoopDriver driver = new OpenLoopDriver("http://localhost:8080", rate, requestTimeout);
+            if (!warmup.isZero()) {
+                log("Warming up at %d req/s for %ds", rate, warmup.toSeconds());
+                driver.run(warmup);
+            }
+            log("Measuring at %d req/s for %ds", rate, duration.toSeconds());
+            notificationLag.startMeasuring();
+            OpenLoopDriver.Result result = driver.run(duration);
+            // Spans are exported about once a second; give the last notifications time to arrive.
+            Thread.sleep(5_000);
+            
+            System.out.println();
+            System.out.printf("Open-loop load: %d req/s for %ds after %ds warm-up%n", rate, duration.toSeconds(),
+                warmup.toSeconds());
+            System.out.printf("Requests:          %,d sent, %,d ok, %,d failed or timed out%n",
+                result.sent(), result.succeeded(), result.failed());
+            System.out.printf("Throughput:        %.1f req/s%n", result.throughput());
+            printPercentiles("Request latency:  ", result.latency());
+            Histogram lag = notificationLag.histogram();
+            printPercentiles("Notification lag: ", lag);
+            System.out.printf("                   %,d notifications in sampled traces, published to processed%n",
+                lag.getTotalCount());
+            System.out.printf("Spans received:    %,d%n", zipkin.spansReceived());
+            
+            zipkin.close();
+            System.exit(result.failed() > 0 ? 1 : 0);
+        } catch (Exception e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+    
+    private static void printPercentiles(String label, Histogram histogram) {
+        if (histogram.getTotalCount() == 0) {
+            System.out.println(label + " no samples");
+            return;
+        }
+        System.out.printf("%s p50 %s   p99 %s   p99.9 %s   max %s%n", label,
+            millis(histogram.getValueAtPercentile(50)), millis(histogram.getValueAtPercentile(99)),
+            millis(histogram.getValueAtPercentile(99.9)), millis(histogram.getMaxValue()));
+    }
+    
+    private static String millis(long micros) {
+        return String.format("%.1f ms", micros / 1000.0);
+    }
+    
+    private static boolean isFree(int port) {
+        try (ServerSocket socket = new ServerSocket()) {
+            socket.bind(new InetSocketAddress("localhost", port));
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+    
+    private static void log(String format, Object... args) {
+        System.out.printf("[load-test] " + format + "%n", args);
+    }
+    
+    private static Duration parseDuration(String value) {
+        char unit = value.charAt(value.length() - 1);
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Unknown duration " + value + ", use e.g. 30s, 5m");
+        };
+    }
+}
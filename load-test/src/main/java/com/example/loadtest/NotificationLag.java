@@ -0,0 +1,64 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import zipkin2.Span;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Measures, from the spans of sampled traces, how long a notification takes from the moment a
+ * service publishes it to the end of Service D's processing: the start of the producer span to
+ * the latest end among the consumer span and its children. Spans arrive from four services in
+ * separate batches, so they are matched up when the report is made.
+ */
+final class NotificationLag {
+    
+    private static final String CONSUMER_SERVICE = "service-d";
+    
+    private final Map<String, Long> producerStarts = new HashMap<>();
+    
+    private final Map<String, String> consumerProducers = new HashMap<>();
+    
+    private final Map<String, Long> latestEnds = new HashMap<>();
+    
+    private long measureFromMicros = Long.MAX_VALUE;
+    
+    /**
+     * Only notifications published from now on are reported, leaving out the warm-up.
+     */
+    synchronized void startMeasuring() {
+        measureFromMicros = System.currentTimeMillis() * 1000;
+    }
+    
+    synchronized void accept(List<Span> spans) {
+        for (Span span : spans) {
+            if (span.kind() == Span.Kind.PRODUCER) {
+                producerStarts.put(span.id(), span.timestampAsLong());
+                continue;
+            }
+            if (!CONSUMER_SERVICE.equals(span.localServiceName())) {
+                continue;
+            }
+            long end = span.timestampAsLong() + span.durationAsLong();
+            if (span.kind() == Span.Kind.CONSUMER && span.parentId() != null) {
+                consumerProducers.put(span.id(), span.parentId());
+                latestEnds.merge(span.id(), end, Math::max);
+            } else if (span.parentId() != null) {
+                latestEnds.merge(span.parentId(), end, Math::max);
+            }
+        }
+    }
+    
+    synchronized Histogram histogram() {
+        Histogram histogram = new Histogram(3);
+        consumerProducers.forEach((consumerId, producerId) -> {
+            Long published = producerStarts.get(producerId);
+            if (published != null && published >= measureFromMicros) {
+                histogram.recordValue(Math.max(0, latestEnds.get(consumerId) - published));
+            }
+        });
+        return histogram;
+    }
+}
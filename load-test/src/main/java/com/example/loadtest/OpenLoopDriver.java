@@ -0,0 +1,91 @@
+package com.example.loadtest;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends {@code GET /api/order/{id}} at a fixed arrival rate whether or not earlier requests have
+ * completed, as independent users would. Latency is measured from the time a request was due to
+ * be sent rather than when it was, so a stalled sender does not hide the queueing it causes.
+ */
+final class OpenLoopDriver {
+    
+    private final String baseUrl;
+    
+    private final int rate;
+    
+    private final Duration requestTimeout;
+    
+    private final HttpClient client;
+    
+    private final AtomicLong sequence = new AtomicLong();
+    
+    OpenLoopDriver(String baseUrl, int rate, Duration requestTimeout) {
+        this.baseUrl = baseUrl;
+        this.rate = rate;
+        this.requestTimeout = requestTimeout;
+        this.client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+    }
+    
+    Result run(Duration duration) throws InterruptedException {
+        Recorder recorder = new Recorder(TimeUnit.MINUTES.toMicros(10), 3);
+        AtomicLong succeeded = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        AtomicLong inFlight = new AtomicLong();
+        
+        long periodNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        long start = System.nanoTime();
+        long sent = 0;
+        for (long due = start; due - start < duration.toNanos(); due += periodNanos) {
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            long intendedStart = due;
+            HttpRequest request = HttpRequest.newBuilder(
+                    URI.create(baseUrl + "/api/order/" + String.format("LT-%08d", sequence.incrementAndGet())))
+                .timeout(requestTimeout)
+                .build();
+            inFlight.incrementAndGet();
+            sent++;
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding()).whenComplete((response, error) -> {
+                if (error == null && response.statusCode() == 200) {
+                    recorder.recordValue(Math.max(0, TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart)));
+                    succeeded.incrementAndGet();
+                } else {
+                    failed.incrementAndGet();
+                }
+                inFlight.decrementAndGet();
+            });
+        }
+        long drainDeadline = System.nanoTime() + requestTimeout.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(50);
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        return new Result(sent, succeeded.get(), failed.get() + inFlight.get(), elapsedNanos,
+            recorder.getIntervalHistogram());
+    }
+    
+    /**
+     * Latencies in microseconds. Requests still outstanding at the end count as failed.
+     */
+    record Result(long sent, long succeeded, long failed, long elapsedNanos, Histogram latency) {
+        
+        double throughput() {
+            return succeeded * (double) TimeUnit.SECONDS.toNanos(1) / elapsedNanos;
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package com.example.loadtest;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Starts a service from its executable jar inside this JVM. The jar gets a class loader of its
+ * own whose parent is the platform loader, and Spring Boot's launcher from that jar builds the
+ * service's class path from the jar itself, as {@code java -jar} would. Services share no classes
+ * or static state: each has its own tracer, meter registry and woven {@code @Observed} aspect.
+ */
+final class ServiceLauncher {
+    
+    private static final String LAUNCHER_CLASS = "org.springframework.boot.loader.launch.JarLauncher";
+    
+    private static final String TOMCAT_URL_FACTORY_CLASS =
+        "org.apache.catalina.webresources.TomcatURLStreamHandlerFactory";
+    
+    private ServiceLauncher() {
+    }
+    
+    /**
+     * Returns once the service's {@code main} has returned, that is once its context is up.
+     */
+    static void start(String name, Path jar, List<String> args) throws Exception {
+        if (!Files.isRegularFile(jar)) {
+            throw new IOException("No executable jar for " + name + " at " + jar + "; build the services first");
+        }
+        URLClassLoader jarLoader = new URLClassLoader(name, new URL[] {jar.toUri().toURL()},
+            ClassLoader.getPlatformClassLoader());
+        // What JarLauncher.main does, split up so Tomcat can be adjusted before the service starts.
+        Class<?> launcherClass = jarLoader.loadClass(LAUNCHER_CLASS);
+        Object launcher = launcherClass.getConstructor().newInstance();
+        Collection<?> classPath = (Collection<?>) launcherMethod(launcherClass, "getClassPathUrls").invoke(launcher);
+        ClassLoader serviceLoader = (ClassLoader) launcherMethod(launcherClass, "createClassLoader", Collection.class)
+            .invoke(launcher, classPath);
+        String mainClass = (String) launcherMethod(launcherClass, "getMainClass").invoke(launcher);
+        
+        // Every Tomcat installs the JVM-wide URL stream handler factory, which can be set only once.
+        serviceLoader.loadClass(TOMCAT_URL_FACTORY_CLASS).getMethod("disable").invoke(null);
+        
+        Method main = serviceLoader.loadClass(mainClass).getMethod("main", String[].class);
+        Exception[] failure = new Exception[1];
+        Thread thread = new Thread(() -> {
+            try {
+                main.invoke(null, (Object) args.toArray(new String[0]));
+            } catch (InvocationTargetException e) {
+                failure[0] = e.getCause() instanceof Exception cause ? cause : e;
+            } catch (IllegalAccessException e) {
+                failure[0] = e;
+            }
+        }, name + "-main");
+        thread.setContextClassLoader(serviceLoader);
+        thread.start();
+        thread.join();
+        if (failure[0] != null) {
+            throw new IllegalStateException(name + " failed to start", failure[0]);
+        }
+    }
+    
+    private static Method launcherMethod(Class<?> launcherClass, String name, Class<?>... parameterTypes)
+        throws NoSuchMethodException {
+        for (Class<?> type = launcherClass; type != null; type = type.getSuperclass()) {
+            try {
+                Method method = type.getDeclaredMethod(name, parameterTypes);
+                method.setAccessible(true);
+                return method;
+            } catch (NoSuchMethodException e) {
+                // Declared further up
+            }
+        }
+        throw new NoSuchMethodException(launcherClass.getName() + "." + name);
+    }
+    
+    static void awaitHealthy(String name, int port, Duration timeout) throws InterruptedException {
+        HttpClient client = HttpClient.newHttpClient();
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + "/health"))
+            .timeout(Duration.ofSeconds(2))
+            .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            try {
+                if (client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Not listening yet
+            }
+            Thread.sleep(250);
+        }
+        throw new IllegalStateException(name + " did not become healthy on port " + port + " within " + timeout);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.loadtest;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesDecoder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Accepts span posts on {@code /api/v2/spans} like a Zipkin collector, in JSON or proto3, gzipped
+ * or not, and passes the decoded spans to {@link NotificationLag} instead of storing them.
+ */
+final class ZipkinStub implements AutoCloseable {
+    
+    private final NotificationLag notificationLag;
+    
+    private final AtomicLong spans = new AtomicLong();
+    
+    private HttpServer server;
+    
+    ZipkinStub(NotificationLag notificationLag) {
+        this.notificationLag = notificationLag;
+    }
+    
+    void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/api/v2/spans", this::handle);
+        server.setExecutor(Executors.newFixedThreadPool(2));
+        server.start();
+    }
+    
+    long spansReceived() {
+        return spans.get();
+    }
+    
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"POST".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body;
+            try (InputStream input = "gzip".equalsIgnoreCase(exchange.getRequestHeaders().getFirst("Content-Encoding"))
+                ? new GZIPInputStream(exchange.getRequestBody())
+                : exchange.getRequestBody()) {
+                body = input.readAllBytes();
+            }
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            SpanBytesDecoder decoder = contentType != null && contentType.startsWith("application/x-protobuf")
+                ? SpanBytesDecoder.PROTO3
+                : SpanBytesDecoder.JSON_V2;
+            List<Span> decoded = decoder.decodeList(body);
+            spans.addAndGet(decoded.size());
+            notificationLag.accept(decoded);
+            exchange.sendResponseHeaders(202, -1);
+        }
+    }
+    
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+        }
+    }
+}
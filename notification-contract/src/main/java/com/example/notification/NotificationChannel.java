@@ -0,0 +1,24 @@
+package com.example.notification;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Channel a notification is delivered through. Written to JSON by name; names this version does
+ * not know are read as {@link #UNKNOWN} rather than failing the message.
+ */
+public enum NotificationChannel {
+    EMAIL, SMS, PUSH, UNKNOWN;
+    
+    @JsonCreator
+    public static NotificationChannel from(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "EMAIL" -> EMAIL;
+            case "SMS" -> SMS;
+            case "PUSH" -> PUSH;
+            default -> UNKNOWN;
+        };
+    }
+}
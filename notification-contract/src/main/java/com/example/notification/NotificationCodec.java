@@ -0,0 +1,205 @@
+package com.example.notification;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Binary form of a {@link NotificationRequest}, written and read field by field without
+ * reflection. Schema version 1 is
+ * {@code [version][flags][type][status][channel][orderId]}: bit 0 of the flags is
+ * {@code callbackRequired}; type, status and channel are one byte each, an index into the table
+ * of their field, or {@code LITERAL} followed by the constant's name for constants the table does
+ * not have; strings are a varint of the UTF-8 length plus one, 0 meaning null, then the bytes.
+ * <p>
+ * Tabled values are decoded to their enum constant straight from the body, without building a
+ * string; literal names go through the enum's {@code from}, so unknown ones become
+ * {@code UNKNOWN}. The tables belong to the schema version and are listed explicitly rather than
+ * taken from the enums' order: appending to one needs a new version, and decoders reject
+ * versions newer than theirs, so consumers must be upgraded before producers.
+ */
+public final class NotificationCodec {
+    
+    public static final String CONTENT_TYPE = "application/x-notification-request";
+    
+    public static final byte VERSION = 1;
+    
+    static final List<NotificationType> TYPES = List.of(NotificationType.ORDER_CREATED,
+        NotificationType.ORDER_PROCESSED, NotificationType.INVENTORY_RESERVED, NotificationType.ORDER_UPDATE);
+    
+    static final List<NotificationStatus> STATUSES = List.of(NotificationStatus.CREATED, NotificationStatus.PROCESSED,
+        NotificationStatus.RESERVED);
+    
+    static final List<NotificationChannel> CHANNELS = List.of(NotificationChannel.EMAIL, NotificationChannel.SMS,
+        NotificationChannel.PUSH);
+    
+    private static final int NULL_VALUE = 0;
+    
+    private static final int LITERAL = 0xFF;
+    
+    private static final int CALLBACK_REQUIRED = 1;
+    
+    private NotificationCodec() {
+    }
+    
+    public static byte[] encode(NotificationRequest request) {
+        String orderId = request.getOrderId();
+        int size = 2 + valueSize(TYPES, request.getType()) + valueSize(STATUSES, request.getStatus())
+            + valueSize(CHANNELS, request.getChannel()) + stringSize(orderId);
+        byte[] body = new byte[size];
+        body[0] = VERSION;
+        body[1] = (byte) (request.isCallbackRequired() ? CALLBACK_REQUIRED : 0);
+        int position = writeValue(body, 2, TYPES, request.getType());
+        position = writeValue(body, position, STATUSES, request.getStatus());
+        position = writeValue(body, position, CHANNELS, request.getChannel());
+        writeString(body, position, orderId);
+        return body;
+    }
+    
+    /**
+     * Reads a request from a message body; throws {@link IllegalArgumentException} if it is not a
+     * well-formed message of a known schema version.
+     */
+    public static NotificationRequest decode(byte[] body) {
+        if (body.length < 2 || body[0] < 1 || body[0] > VERSION) {
+            throw new IllegalArgumentException(body.length == 0
+                ? "Empty notification message"
+                : "Unsupported notification schema version " + body[0]);
+        }
+        try {
+            Reader reader = new Reader(body, 2);
+            NotificationRequest request = new NotificationRequest();
+            request.setCallbackRequired((body[1] & CALLBACK_REQUIRED) != 0);
+            request.setType(reader.readValue(TYPES, NotificationType::from));
+            request.setStatus(reader.readValue(STATUSES, NotificationStatus::from));
+            request.setChannel(reader.readValue(CHANNELS, NotificationChannel::from));
+            request.setOrderId(reader.readString());
+            return request;
+        } catch (IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Truncated notification message of " + body.length + " bytes", e);
+        }
+    }
+    
+    private static <E extends Enum<E>> int valueSize(List<E> table, E value) {
+        return value == null || table.contains(value) ? 1 : 1 + stringSize(value.name());
+    }
+    
+    private static <E extends Enum<E>> int writeValue(byte[] body, int position, List<E> table, E value) {
+        if (value == null) {
+            body[position] = NULL_VALUE;
+            return position + 1;
+        }
+        int index = table.indexOf(value);
+        if (index >= 0) {
+            body[position] = (byte) (index + 1);
+            return position + 1;
+        }
+        body[position] = (byte) LITERAL;
+        return writeString(body, position + 1, value.name());
+    }
+    
+    private static int stringSize(String value) {
+        if (value == null) {
+            return 1;
+        }
+        int length = utf8Length(value);
+        return varintSize(length + 1) + length;
+    }
+    
+    private static int writeString(byte[] body, int position, String value) {
+        if (value == null) {
+            body[position] = 0;
+            return position + 1;
+        }
+        int length = utf8Length(value);
+        position = writeVarint(body, position, length + 1);
+        if (length == value.length()) {
+            // ASCII, the usual case for order IDs: one byte per char, no intermediate array.
+            for (int i = 0; i < length; i++) {
+                body[position + i] = (byte) value.charAt(i);
+            }
+        } else {
+            System.arraycopy(value.getBytes(StandardCharsets.UTF_8), 0, body, position, length);
+        }
+        return position + length;
+    }
+    
+    private static int utf8Length(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) >= 0x80) {
+                return value.getBytes(StandardCharsets.UTF_8).length;
+            }
+        }
+        return value.length();
+    }
+    
+    private static int varintSize(int value) {
+        int size = 1;
+        while ((value >>>= 7) != 0) {
+            size++;
+        }
+        return size;
+    }
+    
+    private static int writeVarint(byte[] body, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            body[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        body[position++] = (byte) value;
+        return position;
+    }
+    
+    private static final class Reader {
+        
+        private final byte[] body;
+        
+        private int position;
+        
+        private Reader(byte[] body, int position) {
+            this.body = body;
+            this.position = position;
+        }
+        
+        private <E extends Enum<E>> E readValue(List<E> table, Function<String, E> fromName) {
+            int code = body[position++] & 0xFF;
+            if (code == NULL_VALUE) {
+                return null;
+            }
+            if (code == LITERAL) {
+                String name = readString();
+                return name == null ? null : fromName.apply(name);
+            }
+            if (code > table.size()) {
+                throw new IllegalArgumentException("Unknown value code " + code + " at offset " + (position - 1));
+            }
+            return table.get(code - 1);
+        }
+        
+        private String readString() {
+            int lengthPlusOne = readVarint();
+            if (lengthPlusOne == 0) {
+                return null;
+            }
+            int length = lengthPlusOne - 1;
+            if (length < 0 || length > body.length - position) {
+                throw new IndexOutOfBoundsException(position + length);
+            }
+            String value = new String(body, position, length, StandardCharsets.UTF_8);
+            position += length;
+            return value;
+        }
+        
+        private int readVarint() {
+            int value = 0;
+            for (int shift = 0; shift < 32; shift += 7) {
+                byte b = body[position++];
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+            throw new IllegalArgumentException("Malformed length at offset " + position);
+        }
+    }
+}
@@ -0,0 +1,8 @@
+package com.example.notification;
+
+/**
+ * Body format producers write notifications in; consumers read both.
+ */
+public enum NotificationFormat {
+    JSON, BINARY
+}
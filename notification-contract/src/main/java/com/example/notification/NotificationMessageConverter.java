@@ -0,0 +1,46 @@
+package com.example.notification;
+
+import org.springframework.amqp.core.Message;
+import org.springframework.amqp.core.MessageProperties;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.amqp.support.converter.MessageConverter;
+
+/**
+ * Converts {@link NotificationRequest}s with {@link NotificationCodec} and everything else with
+ * the delegate. Incoming messages are chosen by content type, so binary and JSON notifications
+ * can share a queue while producers switch over; outgoing notifications use {@code format}.
+ */
+public class NotificationMessageConverter implements MessageConverter {
+    
+    private final MessageConverter delegate;
+    
+    private final NotificationFormat format;
+    
+    public NotificationMessageConverter(MessageConverter delegate, NotificationFormat format) {
+        this.delegate = delegate;
+        this.format = format;
+    }
+    
+    @Override
+    public Message toMessage(Object object, MessageProperties messageProperties) {
+        if (format != NotificationFormat.BINARY || !(object instanceof NotificationRequest request)) {
+            return delegate.toMessage(object, messageProperties);
+        }
+        byte[] body = NotificationCodec.encode(request);
+        messageProperties.setContentType(NotificationCodec.CONTENT_TYPE);
+        messageProperties.setContentLength(body.length);
+        return new Message(body, messageProperties);
+    }
+    
+    @Override
+    public Object fromMessage(Message message) {
+        if (!NotificationCodec.CONTENT_TYPE.equals(message.getMessageProperties().getContentType())) {
+            return delegate.fromMessage(message);
+        }
+        try {
+            return NotificationCodec.decode(message.getBody());
+        } catch (IllegalArgumentException e) {
+            throw new MessageConversionException("Cannot decode notification: " + e.getMessage(), e);
+        }
+    }
+}
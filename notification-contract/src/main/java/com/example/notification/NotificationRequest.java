@@ -1,17 +1,18 @@
-package com.example.serviced;
+package com.example.notification;
 
 public class NotificationRequest {
     
     private String orderId;
-    private String type;
-    private String status;
-    private String channel;
+    private NotificationType type;
+    private NotificationStatus status;
+    private NotificationChannel channel;
     private boolean callbackRequired;
     
     public NotificationRequest() {
     }
     
-    public NotificationRequest(String orderId, String type, String status, String channel, boolean callbackRequired) {
+    public NotificationRequest(String orderId, NotificationType type, NotificationStatus status,
+                               NotificationChannel channel, boolean callbackRequired) {
         this.orderId = orderId;
         this.type = type;
         this.status = status;
@@ -27,27 +28,27 @@ public class NotificationRequest {
         this.orderId = orderId;
     }
     
-    public String getType() {
+    public NotificationType getType() {
         return type;
     }
     
-    public void setType(String type) {
+    public void setType(NotificationType type) {
         this.type = type;
     }
     
-    public String getStatus() {
+    public NotificationStatus getStatus() {
         return status;
     }
     
-    public void setStatus(String status) {
+    public void setStatus(NotificationStatus status) {
         this.status = status;
     }
     
-    public String getChannel() {
+    public NotificationChannel getChannel() {
         return channel;
     }
     
-    public void setChannel(String channel) {
+    public void setChannel(NotificationChannel channel) {
         this.channel = channel;
     }
     
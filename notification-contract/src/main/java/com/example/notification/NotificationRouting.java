@@ -0,0 +1,108 @@
+package com.example.notification;
+
+import org.springframework.amqp.core.BindingBuilder;
+import org.springframework.amqp.core.Declarable;
+import org.springframework.amqp.core.Declarables;
+import org.springframework.amqp.core.FanoutExchange;
+import org.springframework.amqp.core.Queue;
+import org.springframework.amqp.core.QueueBuilder;
+import org.springframework.amqp.core.TopicExchange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Topic routing of notifications: producers publish to {@link #EXCHANGE} with the key
+ * {@code notification.<channel>.<type>}, and each channel has a durable queue bound to
+ * {@code notification.<channel>.*}, so a backlog on one channel never delays another.
+ * {@code UNKNOWN} channels are routed to {@link #DEFAULT_QUEUE}, the queue producers used to
+ * send to directly, which keeps draining messages from producers that predate topic routing and
+ * still publish with {@link #LEGACY_ROUTING_KEY}. Messages a consumer rejects from a channel queue
+ * are dead-lettered through {@link #DEAD_LETTER_EXCHANGE} to {@link #DEAD_LETTER_QUEUE} instead of
+ * being discarded. {@link #DEFAULT_QUEUE} is declared exactly as before, since RabbitMQ refuses to
+ * redeclare an existing queue with new arguments; it gets its dead-letter exchange from a broker
+ * policy instead.
+ */
+public final class NotificationRouting {
+    
+    public static final String EXCHANGE = "notification-exchange";
+    
+    public static final String EMAIL_QUEUE = "notification-queue.email";
+    
+    public static final String SMS_QUEUE = "notification-queue.sms";
+    
+    public static final String PUSH_QUEUE = "notification-queue.push";
+    
+    public static final String DEFAULT_QUEUE = "notification-queue";
+    
+    public static final String LEGACY_ROUTING_KEY = "notification.order";
+    
+    public static final String DEAD_LETTER_EXCHANGE = "notification-dlx";
+    
+    public static final String DEAD_LETTER_QUEUE = "notification-dlq";
+    
+    private static final String PREFIX = "notification.";
+    
+    private static final String[][] ROUTING_KEYS =
+        new String[NotificationChannel.values().length][NotificationType.values().length];
+    
+    static {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            for (NotificationType type : NotificationType.values()) {
+                ROUTING_KEYS[channel.ordinal()][type.ordinal()] = PREFIX + segment(channel) + "." + segment(type);
+            }
+        }
+    }
+    
+    private NotificationRouting() {
+    }
+    
+    /**
+     * Routing key for a request, looked up rather than built; missing fields route as {@code UNKNOWN}.
+     */
+    public static String routingKey(NotificationRequest request) {
+        NotificationChannel channel = request.getChannel() == null ? NotificationChannel.UNKNOWN : request.getChannel();
+        NotificationType type = request.getType() == null ? NotificationType.UNKNOWN : request.getType();
+        return ROUTING_KEYS[channel.ordinal()][type.ordinal()];
+    }
+    
+    public static String queue(NotificationChannel channel) {
+        return switch (channel) {
+            case EMAIL -> EMAIL_QUEUE;
+            case SMS -> SMS_QUEUE;
+            case PUSH -> PUSH_QUEUE;
+            case UNKNOWN -> DEFAULT_QUEUE;
+        };
+    }
+    
+    /**
+     * The exchange, the channel queues and their bindings, declared by producers and Service D
+     * alike so messages are kept whichever side starts first.
+     */
+    public static Declarables declarables() {
+        TopicExchange exchange = new TopicExchange(EXCHANGE);
+        List<Declarable> declarables = new ArrayList<>();
+        FanoutExchange deadLetterExchange = new FanoutExchange(DEAD_LETTER_EXCHANGE);
+        Queue deadLetterQueue = QueueBuilder.durable(DEAD_LETTER_QUEUE).build();
+        declarables.add(exchange);
+        declarables.add(deadLetterExchange);
+        declarables.add(deadLetterQueue);
+        declarables.add(BindingBuilder.bind(deadLetterQueue).to(deadLetterExchange));
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            Queue queue = channel == NotificationChannel.UNKNOWN
+                ? QueueBuilder.durable(DEFAULT_QUEUE).build()
+                : QueueBuilder.durable(queue(channel)).deadLetterExchange(DEAD_LETTER_EXCHANGE).build();
+            declarables.add(queue);
+            declarables.add(BindingBuilder.bind(queue).to(exchange).with(PREFIX + segment(channel) + ".*"));
+            if (channel == NotificationChannel.UNKNOWN) {
+                declarables.add(BindingBuilder.bind(queue).to(exchange).with(LEGACY_ROUTING_KEY));
+            }
+        }
+        return new Declarables(declarables);
+    }
+    
+    private static String segment(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.notification;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * State of the order a notification reports. Written to JSON by name; names this version does
+ * not know are read as {@link #UNKNOWN} rather than failing the message.
+ */
+public enum NotificationStatus {
+    CREATED, PROCESSED, RESERVED, UNKNOWN;
+    
+    @JsonCreator
+    public static NotificationStatus from(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "CREATED" -> CREATED;
+            case "PROCESSED" -> PROCESSED;
+            case "RESERVED" -> RESERVED;
+            default -> UNKNOWN;
+        };
+    }
+}
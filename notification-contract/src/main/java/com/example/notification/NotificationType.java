@@ -0,0 +1,25 @@
+package com.example.notification;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+
+/**
+ * Event a notification is sent for. Written to JSON by name; names this version does not know
+ * are read as {@link #UNKNOWN} rather than failing the message.
+ */
+public enum NotificationType {
+    ORDER_CREATED, ORDER_PROCESSED, INVENTORY_RESERVED, ORDER_UPDATE, UNKNOWN;
+    
+    @JsonCreator
+    public static NotificationType from(String name) {
+        if (name == null) {
+            return null;
+        }
+        return switch (name) {
+            case "ORDER_CREATED" -> ORDER_CREATED;
+            case "ORDER_PROCESSED" -> ORDER_PROCESSED;
+            case "INVENTORY_RESERVED" -> INVENTORY_RESERVED;
+            case "ORDER_UPDATE" -> ORDER_UPDATE;
+            default -> UNKNOWN;
+        };
+    }
+}
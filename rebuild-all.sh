@@ -40,6 +40,10 @@ echo -e "${YELLOW}Using existing RabbitMQ instance...${NC}"
 echo -e "${YELLOW}Waiting for Zipkin to start...${NC}"
 sleep 5
 
+# Install the shared library the services depend on
+echo -e "${YELLOW}Building service-common...${NC}"
+(cd service-common && mvn clean install -DskipTests)
+
 # Build all services
 for service in "${SERVICES[@]}"; do
     echo -e "${YELLOW}Building $service...${NC}"
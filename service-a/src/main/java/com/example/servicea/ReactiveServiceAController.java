@@ -0,0 +1,222 @@
+package com.example.servicea;
+
+import com.example.common.concurrent.SingleFlight;
+import com.example.common.messaging.BatchingRabbitPublisher;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationRouting;
+import com.example.notification.NotificationType;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.observability.micrometer.Micrometer;
+import reactor.core.publisher.Mono;
+import reactor.util.function.Tuple2;
+import reactor.util.function.Tuples;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+@RestController
+@Profile("reactive")
+public class ReactiveServiceAController {
+    
+    private static final Logger logger = LoggerFactory.getLogger(ReactiveServiceAController.class);
+    
+    private final WebClient webClient;
+    
+    private final BatchingRabbitPublisher notificationPublisher;
+    
+    private final ObservationRegistry observationRegistry;
+    
+    private final SingleFlight singleFlight;
+    
+    private final ErrorTagger errorTagger;
+    
+    @Value("${service-a.fan-out.parallel:true}")
+    private boolean parallelFanOut;
+    
+    @Value("${service-a.fan-out.order-timeout:5s}")
+    private Duration orderTimeout;
+    
+    @Value("${service-a.fan-out.inventory-timeout:5s}")
+    private Duration inventoryTimeout;
+    
+    public ReactiveServiceAController(WebClient.Builder webClientBuilder, BatchingRabbitPublisher notificationPublisher,
+                                      ObservationRegistry observationRegistry, SingleFlight singleFlight,
+                                      ErrorTagger errorTagger) {
+        this.webClient = webClientBuilder.build();
+        this.notificationPublisher = notificationPublisher;
+        this.observationRegistry = observationRegistry;
+        this.singleFlight = singleFlight;
+        this.errorTagger = errorTagger;
+    }
+    
+    @GetMapping("/api/order/{orderId}")
+    public Mono<String> getOrder(@PathVariable String orderId) {
+        logger.info("Service A: Received request for order {}", orderId);
+        
+        Mono<String> orderCall = fetch("service-b", "http://localhost:8081/order/{orderId}", orderId, orderTimeout);
+        Mono<String> inventoryCall = fetch("service-c", "http://localhost:8082/inventory/{orderId}", orderId, inventoryTimeout);
+        
+        Mono<Tuple2<String, String>> responses = parallelFanOut
+            ? Mono.zip(orderCall, inventoryCall)
+            : orderCall.flatMap(order -> inventoryCall.map(inventory -> Tuples.of(order, inventory)));
+        
+        return observed("service-a.validate-request", Mono.fromRunnable(() -> validateRequest(orderId)))
+            .then(observed("service-a.prepare-metadata", Mono.fromSupplier(() -> prepareOrderMetadata(orderId))))
+            .doOnNext(orderMetadata -> logger.info("Service A: Order metadata prepared: {}", orderMetadata))
+            .then(responses)
+            .flatMap(result -> sendAsyncNotification(orderId, NotificationType.ORDER_CREATED)
+                .then(observed("service-a.format-response",
+                    Mono.fromSupplier(() -> formatResponse(result.getT1(), result.getT2())))))
+            .doOnSuccess(response -> logger.info("Service A: Completed request for order {}", orderId));
+    }
+    
+    /**
+     * Reactive counterpart of {@code @Observed}: records {@code step} as a child observation of the
+     * request, so both stacks produce the same spans.
+     */
+    private <T> Mono<T> observed(String name, Mono<T> step) {
+        return step.name(name).tap(Micrometer.observation(observationRegistry));
+    }
+    
+    private Mono<String> fetch(String target, String uri, String orderId, Duration timeout) {
+        return webClient.get()
+            .uri(uri, orderId)
+            .retrieve()
+            .bodyToMono(String.class)
+            .timeout(timeout)
+            .onErrorMap(TimeoutException.class, e -> {
+                logger.error("Service A: {} did not respond within {}", target, timeout);
+                return new ResponseStatusException(
+                    HttpStatus.GATEWAY_TIMEOUT,
+                    target + " did not respond within " + timeout.toMillis() + "ms"
+                );
+            })
+            .doOnError(e -> {
+                boolean timedOut = e instanceof ResponseStatusException status
+                    && status.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value();
+                errorTagger.tag(timedOut ? ErrorType.TIMEOUT : ErrorType.DOWNSTREAM, e.getMessage());
+            });
+    }
+    
+    private void validateRequest(String orderId) {
+        logger.debug("Service A: Validating order ID {}", orderId);
+        if (orderId == null || orderId.isEmpty()) {
+            throw new IllegalArgumentException("Order ID cannot be empty");
+        }
+    }
+    
+    private Map<String, Object> prepareOrderMetadata(String orderId) {
+        logger.debug("Service A: Preparing metadata for order {}", orderId);
+        Map<String, Object> metadata = new HashMap<>();
+        metadata.put("orderId", orderId);
+        metadata.put("timestamp", System.currentTimeMillis());
+        metadata.put("source", "service-a");
+        return metadata;
+    }
+    
+    private String formatResponse(String orderResponse, String inventoryResponse) {
+        logger.debug("Service A: Formatting response");
+        return String.format("Service A -> [B: %s] [C: %s]", orderResponse, inventoryResponse);
+    }
+    
+    private Mono<Void> sendAsyncNotification(String orderId, NotificationType eventType) {
+        return observed("service-a.send-async-notification", Mono.fromRunnable(() -> {
+            logger.info("Service A: Sending async notification to Service D for order {}", orderId);
+            NotificationRequest notification = new NotificationRequest();
+            notification.setOrderId(orderId);
+            notification.setType(eventType);
+            notification.setChannel(NotificationChannel.EMAIL);
+            notification.setCallbackRequired(true);
+            
+            if (notificationPublisher.publish(NotificationRouting.EXCHANGE, NotificationRouting.routingKey(notification),
+                notification)) {
+                logger.info("Service A: Notification queued for publishing");
+            }
+        }).onErrorResume(e -> {
+            logger.warn("Service A: Failed to send async notification: {}", e.getMessage());
+            errorTagger.tag(ErrorType.MESSAGING, e.getMessage());
+            return Mono.empty();
+        }).then());
+    }
+    
+    @GetMapping("/health")
+    public String health() {
+        return "Service A is running";
+    }
+    
+    @GetMapping("/process/{orderId}")
+    public Mono<String> processFromServiceB(@PathVariable String orderId) {
+        logger.info("Service A: Received callback from Service B for order {}", orderId);
+        
+        return shared("order-status", orderId, processCallback(orderId).then(updateOrderStatus(orderId)))
+            .then(Mono.fromSupplier(() -> {
+                logger.info("Service A: Callback processed for order {}", orderId);
+                return "Service A: Processed callback for order " + orderId;
+            }));
+    }
+    
+    @GetMapping("/verify/{orderId}")
+    public Mono<String> verifyFromServiceC(@PathVariable String orderId) {
+        logger.info("Service A: Received verification from Service C for order {}", orderId);
+        
+        return shared("verify", orderId, verifyOrder(orderId))
+            .then(Mono.fromSupplier(() -> {
+                logger.info("Service A: Verification completed for order {}", orderId);
+                return "Service A: Verified order " + orderId;
+            }));
+    }
+    
+    @GetMapping("/api/callback/{orderId}")
+    public Mono<String> handleCallback(@PathVariable String orderId) {
+        logger.info("Service A: Received callback from Service D for order {}", orderId);
+        
+        return shared("order-status", orderId, processCallback(orderId).then(updateOrderStatus(orderId)))
+            .then(Mono.fromSupplier(() -> {
+                logger.info("Service A: Callback processed for order {}", orderId);
+                return "Service A: Callback received for order " + orderId;
+            }));
+    }
+    
+    /**
+     * Identical concurrent callbacks share one run of {@code work}, as in the servlet controller.
+     */
+    private Mono<Void> shared(String operation, String orderId, Mono<Void> work) {
+        // A non-null result, as with SingleFlight.run, so the outcome is retained; the caller's context
+        // is carried into the shared subscription so its spans stay in the request's trace.
+        return Mono.deferContextual(context -> Mono.fromFuture(() -> singleFlight.executeAsync(operation, orderId,
+            () -> work.thenReturn(Boolean.TRUE).contextWrite(context).toFuture()))).then();
+    }
+    
+    private Mono<Void> processCallback(String orderId) {
+        return observed("service-a.process-callback", Mono.delay(Duration.ofMillis(30))
+            .doOnSubscribe(subscription -> logger.debug("Service A: Processing callback for order {}", orderId))
+            .then());
+    }
+    
+    private Mono<Void> updateOrderStatus(String orderId) {
+        return observed("service-a.update-order-status", Mono.delay(Duration.ofMillis(20))
+            .doOnSubscribe(subscription -> logger.debug("Service A: Updating order status for {}", orderId))
+            .then());
+    }
+    
+    private Mono<Void> verifyOrder(String orderId) {
+        return observed("service-a.verify-order", Mono.delay(Duration.ofMillis(25))
+            .doOnSubscribe(subscription -> logger.debug("Service A: Verifying order {}", orderId))
+            .then());
+    }
+}
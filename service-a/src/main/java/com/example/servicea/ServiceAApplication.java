@@ -1,14 +1,23 @@
 package com.example.servicea;
 
+import com.example.notification.NotificationFormat;
+import com.example.notification.NotificationMessageConverter;
+import com.example.notification.NotificationRouting;
 import io.micrometer.observation.ObservationRegistry;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
 import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.support.ContextPropagatingTaskDecorator;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
@@ -19,20 +28,32 @@ public class ServiceAApplication {
     }
     
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    @Profile("!reactive")
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory pooledClientHttpRequestFactory) {
+        return builder.requestFactory(() -> pooledClientHttpRequestFactory).build();
     }
     
     @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public TaskDecorator contextPropagatingTaskDecorator() {
+        return new ContextPropagatingTaskDecorator();
+    }
+    
+    @Bean
+    public Declarables notificationTopology() {
+        return NotificationRouting.declarables();
+    }
+    
+    @Bean
+    public MessageConverter messageConverter(@Value("${notification.message-format:binary}") NotificationFormat format) {
+        return new NotificationMessageConverter(new Jackson2JsonMessageConverter(), format);
     }
     
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory, 
-                                          ObservationRegistry observationRegistry) {
+                                          ObservationRegistry observationRegistry,
+                                          MessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(jsonMessageConverter());
+        rabbitTemplate.setMessageConverter(messageConverter);
         rabbitTemplate.setObservationEnabled(true);
         return rabbitTemplate;
     }
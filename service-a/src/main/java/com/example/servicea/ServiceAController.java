@@ -1,19 +1,44 @@
 package com.example.servicea;
 
+import com.example.common.concurrent.SingleFlight;
+import com.example.common.http.AbortableClientHttpRequestFactory;
+import com.example.common.http.AbortableClientHttpRequestFactory.Abort;
+import com.example.common.messaging.BatchingRabbitPublisher;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationRouting;
+import com.example.notification.NotificationType;
 import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
 
 @RestController
+@Profile("!reactive")
 public class ServiceAController {
     
     private static final Logger logger = LoggerFactory.getLogger(ServiceAController.class);
@@ -22,7 +47,26 @@ public class ServiceAController {
     private RestTemplate restTemplate;
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private BatchingRabbitPublisher notificationPublisher;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private ErrorTagger errorTagger;
+    
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private AsyncTaskExecutor taskExecutor;
+    
+    @Value("${service-a.fan-out.parallel:true}")
+    private boolean parallelFanOut;
+    
+    @Value("${service-a.fan-out.order-timeout:5s}")
+    private Duration orderTimeout;
+    
+    @Value("${service-a.fan-out.inventory-timeout:5s}")
+    private Duration inventoryTimeout;
     
     @GetMapping("/api/order/{orderId}")
     public String getOrder(@PathVariable String orderId) {
@@ -33,17 +77,22 @@ public class ServiceAController {
         Map<String, Object> orderMetadata = prepareOrderMetadata(orderId);
         logger.info("Service A: Order metadata prepared: {}", orderMetadata);
         
-        String orderResponse = restTemplate.getForObject(
-            "http://localhost:8081/order/" + orderId, 
-            String.class
-        );
-        
-        String inventoryResponse = restTemplate.getForObject(
-            "http://localhost:8082/inventory/" + orderId,
-            String.class
-        );
+        String orderResponse;
+        String inventoryResponse;
+        if (parallelFanOut) {
+            CompletableFuture<String> orderCall = fetchAsync("service-b", () -> fetchOrder(orderId), orderTimeout);
+            CompletableFuture<String> inventoryCall = fetchAsync("service-c", () -> fetchInventory(orderId), inventoryTimeout);
+            cancelOnFailure(orderCall, inventoryCall);
+            cancelOnFailure(inventoryCall, orderCall);
+            
+            orderResponse = awaitBranch(orderCall, inventoryCall);
+            inventoryResponse = awaitBranch(inventoryCall, orderCall);
+        } else {
+            orderResponse = fetchOrder(orderId);
+            inventoryResponse = fetchInventory(orderId);
+        }
         
-        sendAsyncNotification(orderId, "ORDER_CREATED");
+        sendAsyncNotification(orderId, NotificationType.ORDER_CREATED);
         
         String finalResponse = formatResponse(orderResponse, inventoryResponse);
         
@@ -51,6 +100,81 @@ public class ServiceAController {
         return finalResponse;
     }
     
+    private String fetchOrder(String orderId) {
+        return restTemplate.getForObject(
+            "http://localhost:8081/order/" + orderId, 
+            String.class
+        );
+    }
+    
+    private String fetchInventory(String orderId) {
+        return restTemplate.getForObject(
+            "http://localhost:8082/inventory/" + orderId,
+            String.class
+        );
+    }
+    
+    private CompletableFuture<String> fetchAsync(String target, Supplier<String> call, Duration timeout) {
+        CompletableFuture<String> response = new CompletableFuture<>();
+        Abort abort = new Abort();
+        Future<?> task = taskExecutor.submit(() -> {
+            try {
+                response.complete(AbortableClientHttpRequestFactory.call(abort, call));
+            } catch (Throwable ex) {
+                response.completeExceptionally(ex);
+            }
+        });
+        CompletableFuture<String> branch = response
+            .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+            .exceptionally(ex -> {
+                Throwable cause = ex instanceof CompletionException ? ex.getCause() : ex;
+                if (cause instanceof TimeoutException) {
+                    logger.error("Service A: {} did not respond within {}", target, timeout);
+                    throw new ResponseStatusException(
+                        HttpStatus.GATEWAY_TIMEOUT,
+                        target + " did not respond within " + timeout.toMillis() + "ms"
+                    );
+                }
+                throw ex instanceof CompletionException ce ? ce : new CompletionException(cause);
+            });
+        // A cancelled or timed-out branch aborts its HTTP exchange and releases the pool thread
+        branch.whenComplete((result, ex) -> {
+            if (ex != null && !task.isDone()) {
+                abort.abort();
+                task.cancel(true);
+            }
+        });
+        return branch;
+    }
+    
+    /**
+     * Cancels {@code sibling} as soon as {@code branch} fails, which aborts the sibling's call.
+     */
+    private void cancelOnFailure(CompletableFuture<String> branch, CompletableFuture<String> sibling) {
+        branch.whenComplete((result, ex) -> {
+            if (ex != null) {
+                sibling.cancel(true);
+            }
+        });
+    }
+    
+    private String awaitBranch(CompletableFuture<String> branch, CompletableFuture<String> sibling) {
+        try {
+            return branch.join();
+        } catch (CancellationException e) {
+            // Cancelled because the sibling failed first; surface the sibling's failure instead.
+            return awaitBranch(sibling, branch);
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                boolean timedOut = cause instanceof ResponseStatusException status
+                    && status.getStatusCode().value() == HttpStatus.GATEWAY_TIMEOUT.value();
+                errorTagger.tag(timedOut ? ErrorType.TIMEOUT : ErrorType.DOWNSTREAM, cause.getMessage());
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
     @Observed(name = "service-a.validate-request")
     private void validateRequest(String orderId) {
         logger.debug("Service A: Validating order ID {}", orderId);
@@ -76,19 +200,22 @@ public class ServiceAController {
     }
     
     @Observed(name = "service-a.send-async-notification")
-    private void sendAsyncNotification(String orderId, String eventType) {
+    private void sendAsyncNotification(String orderId, NotificationType eventType) {
         logger.info("Service A: Sending async notification to Service D for order {}", orderId);
         try {
             NotificationRequest notification = new NotificationRequest();
             notification.setOrderId(orderId);
             notification.setType(eventType);
-            notification.setChannel("EMAIL");
+            notification.setChannel(NotificationChannel.EMAIL);
             notification.setCallbackRequired(true);
             
-            rabbitTemplate.convertAndSend("notification-queue", notification);
-            logger.info("Service A: Notification sent to queue");
+            if (notificationPublisher.publish(NotificationRouting.EXCHANGE, NotificationRouting.routingKey(notification),
+                notification)) {
+                logger.info("Service A: Notification queued for publishing");
+            }
         } catch (Exception e) {
             logger.warn("Service A: Failed to send async notification: {}", e.getMessage());
+            errorTagger.tag(ErrorType.MESSAGING, e.getMessage());
         }
     }
     
@@ -101,9 +228,11 @@ public class ServiceAController {
     public String processFromServiceB(@PathVariable String orderId) {
         logger.info("Service A: Received callback from Service B for order {}", orderId);
         
-        processCallback(orderId);
-        
-        updateOrderStatus(orderId);
+        singleFlight.run("order-status", orderId, () -> {
+            processCallback(orderId);
+            
+            updateOrderStatus(orderId);
+        });
         
         logger.info("Service A: Callback processed for order {}", orderId);
         return "Service A: Processed callback for order " + orderId;
@@ -113,7 +242,7 @@ public class ServiceAController {
     public String verifyFromServiceC(@PathVariable String orderId) {
         logger.info("Service A: Received verification from Service C for order {}", orderId);
         
-        verifyOrder(orderId);
+        singleFlight.run("verify", orderId, () -> verifyOrder(orderId));
         
         logger.info("Service A: Verification completed for order {}", orderId);
         return "Service A: Verified order " + orderId;
@@ -123,9 +252,11 @@ public class ServiceAController {
     public String handleCallback(@PathVariable String orderId) {
         logger.info("Service A: Received callback from Service D for order {}", orderId);
         
-        processCallback(orderId);
-        
-        updateOrderStatus(orderId);
+        singleFlight.run("order-status", orderId, () -> {
+            processCallback(orderId);
+            
+            updateOrderStatus(orderId);
+        });
         
         logger.info("Service A: Callback processed for order {}", orderId);
         return "Service A: Callback received for order " + orderId;
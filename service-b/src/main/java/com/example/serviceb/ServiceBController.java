@@ -1,10 +1,16 @@
 package com.example.serviceb;
 
+import com.example.common.messaging.BatchingRabbitPublisher;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationRouting;
+import com.example.notification.NotificationStatus;
+import com.example.notification.NotificationType;
 import io.micrometer.observation.annotation.Observed;
-import io.micrometer.tracing.Tracer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -22,10 +28,10 @@ public class ServiceBController {
     private RestTemplate restTemplate;
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private BatchingRabbitPublisher notificationPublisher;
     
     @Autowired
-    private Tracer tracer;
+    private ErrorTagger errorTagger;
     
     @GetMapping("/order/{orderId}")
     public String processOrder(@PathVariable String orderId) {
@@ -34,7 +40,7 @@ public class ServiceBController {
         // Simulate failure scenarios for demonstration
         if (orderId.equals("timeout-order")) {
             logger.error("Service B: Timeout processing order {}", orderId);
-            tagError("timeout", "Order processing timeout exceeded");
+            errorTagger.tag(ErrorType.TIMEOUT, "Order processing timeout exceeded");
             throw new ResponseStatusException(
                 HttpStatus.REQUEST_TIMEOUT, 
                 "Order processing timeout exceeded"
@@ -43,7 +49,7 @@ public class ServiceBController {
         
         if (orderId.equals("invalid-order")) {
             logger.error("Service B: Invalid order format {}", orderId);
-            tagError("validation", "Invalid order ID format");
+            errorTagger.tag(ErrorType.VALIDATION, "Invalid order ID format");
             throw new ResponseStatusException(
                 HttpStatus.BAD_REQUEST, 
                 "Invalid order ID format"
@@ -52,7 +58,7 @@ public class ServiceBController {
         
         if (orderId.equals("not-found-order")) {
             logger.error("Service B: Order not found {}", orderId);
-            tagError("not_found", "Order not found in database");
+            errorTagger.tag(ErrorType.NOT_FOUND, "Order not found in database");
             throw new ResponseStatusException(
                 HttpStatus.NOT_FOUND, 
                 "Order not found in database"
@@ -61,7 +67,7 @@ public class ServiceBController {
         
         if (orderId.equals("db-error-order")) {
             logger.error("Service B: Database error for order {}", orderId);
-            tagError("database", "Database connection failed");
+            errorTagger.tag(ErrorType.DATABASE, "Database connection failed");
             throw new ResponseStatusException(
                 HttpStatus.INTERNAL_SERVER_ERROR, 
                 "Database connection failed"
@@ -85,20 +91,12 @@ public class ServiceBController {
             String.class
         );
         
-        sendAsyncNotification(orderId, "ORDER_PROCESSED");
+        sendAsyncNotification(orderId, NotificationType.ORDER_PROCESSED);
         
         logger.info("Service B: Order {} processed successfully", orderId);
         return "Service B -> C: " + inventoryResponse;
     }
     
-    private void tagError(String errorType, String errorMessage) {
-        if (tracer.currentSpan() != null) {
-            tracer.currentSpan().tag("error", "true");
-            tracer.currentSpan().tag("error.type", errorType);
-            tracer.currentSpan().tag("error.message", errorMessage);
-        }
-    }
-    
     @GetMapping("/health")
     public String health() {
         return "Service B is running";
@@ -136,20 +134,23 @@ public class ServiceBController {
     }
     
     @Observed(name = "service-b.send-async-notification")
-    private void sendAsyncNotification(String orderId, String eventType) {
+    private void sendAsyncNotification(String orderId, NotificationType eventType) {
         logger.info("Service B: Sending async notification to Service D for order {}", orderId);
         try {
             NotificationRequest notification = new NotificationRequest();
             notification.setOrderId(orderId);
             notification.setType(eventType);
-            notification.setStatus("PROCESSED");
-            notification.setChannel("SMS");
+            notification.setStatus(NotificationStatus.PROCESSED);
+            notification.setChannel(NotificationChannel.SMS);
             notification.setCallbackRequired(false);
             
-            rabbitTemplate.convertAndSend("notification-queue", notification);
-            logger.info("Service B: Notification sent to queue");
+            if (notificationPublisher.publish(NotificationRouting.EXCHANGE, NotificationRouting.routingKey(notification),
+                notification)) {
+                logger.info("Service B: Notification queued for publishing");
+            }
         } catch (Exception e) {
             logger.warn("Service B: Failed to send async notification: {}", e.getMessage());
+            errorTagger.tag(ErrorType.MESSAGING, e.getMessage());
         }
     }
 }
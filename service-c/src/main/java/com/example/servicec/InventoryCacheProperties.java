@@ -0,0 +1,29 @@
+package com.example.servicec;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "inventory.cache")
+public class InventoryCacheProperties {
+    
+    private long maximumSize = 10_000;
+    
+    private Duration expireAfterWrite = Duration.ofSeconds(30);
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+    
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+    
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+}
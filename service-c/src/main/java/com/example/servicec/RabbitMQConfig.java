@@ -1,51 +1,37 @@
 package com.example.servicec;
 
+import com.example.notification.NotificationFormat;
+import com.example.notification.NotificationMessageConverter;
+import com.example.notification.NotificationRouting;
 import io.micrometer.observation.ObservationRegistry;
-import org.springframework.amqp.core.Binding;
-import org.springframework.amqp.core.BindingBuilder;
-import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
     
-    public static final String QUEUE_NAME = "notification-queue";
-    public static final String EXCHANGE_NAME = "notification-exchange";
-    public static final String ROUTING_KEY = "notification.order";
-    
-    @Bean
-    public Queue notificationQueue() {
-        return new Queue(QUEUE_NAME, true);
-    }
-    
-    @Bean
-    public TopicExchange notificationExchange() {
-        return new TopicExchange(EXCHANGE_NAME);
-    }
-    
     @Bean
-    public Binding binding(Queue notificationQueue, TopicExchange notificationExchange) {
-        return BindingBuilder
-            .bind(notificationQueue)
-            .to(notificationExchange)
-            .with(ROUTING_KEY);
+    public Declarables notificationTopology() {
+        return NotificationRouting.declarables();
     }
     
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter(@Value("${notification.message-format:binary}") NotificationFormat format) {
+        return new NotificationMessageConverter(new Jackson2JsonMessageConverter(), format);
     }
     
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory,
-                                          ObservationRegistry observationRegistry) {
+                                          ObservationRegistry observationRegistry,
+                                          MessageConverter messageConverter) {
         RabbitTemplate rabbitTemplate = new RabbitTemplate(connectionFactory);
-        rabbitTemplate.setMessageConverter(messageConverter());
+        rabbitTemplate.setMessageConverter(messageConverter);
         rabbitTemplate.setObservationEnabled(true);
         return rabbitTemplate;
     }
@@ -1,11 +1,10 @@
 package com.example.servicec;
 
-import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
-import org.springframework.amqp.support.converter.MessageConverter;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
@@ -16,12 +15,7 @@ public class ServiceCApplication {
     }
     
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
-    }
-    
-    @Bean
-    public MessageConverter jsonMessageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory pooledClientHttpRequestFactory) {
+        return builder.requestFactory(() -> pooledClientHttpRequestFactory).build();
     }
 }
@@ -1,9 +1,18 @@
 package com.example.servicec;
 
+import com.example.common.concurrent.SingleFlight;
+import com.example.common.messaging.BatchingRabbitPublisher;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationRouting;
+import com.example.notification.NotificationStatus;
+import com.example.notification.NotificationType;
+import com.github.benmanes.caffeine.cache.Cache;
 import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -17,31 +26,44 @@ public class ServiceCController {
     
     private static final Logger logger = LoggerFactory.getLogger(ServiceCController.class);
     
+    private static final int RESERVED_UNITS = 1;
+    
     @Autowired
     private RestTemplate restTemplate;
     
     @Autowired
-    private RabbitTemplate rabbitTemplate;
+    private BatchingRabbitPublisher notificationPublisher;
+    
+    @Autowired
+    private Cache<String, Integer> inventoryCache;
+    
+    @Autowired
+    private SingleFlight singleFlight;
+    
+    @Autowired
+    private ErrorTagger errorTagger;
     
     @GetMapping("/inventory/{orderId}")
     public String checkInventory(@PathVariable String orderId) {
         logger.info("Service C: Checking inventory for order {}", orderId);
         
-        queryDatabase(orderId);
-        
-        int stockLevel = checkStockLevel(orderId);
+        return singleFlight.execute("inventory", orderId, () -> reserveAndNotify(orderId));
+    }
+    
+    private String reserveAndNotify(String orderId) {
+        int stockLevel = inventoryCache.get(orderId, this::loadStockLevel);
         logger.info("Service C: Stock level for order {}: {}", orderId, stockLevel);
         
-        reserveInventory(orderId, stockLevel);
+        int remaining = reserveInventory(orderId, stockLevel);
         
-        updateInventoryCache(orderId);
+        updateInventoryCache(orderId, remaining);
         
         String callbackResponse = restTemplate.getForObject(
             "http://localhost:8080/verify/" + orderId,
             String.class
         );
         
-        sendAsyncNotification(orderId, "INVENTORY_RESERVED");
+        sendAsyncNotification(orderId, NotificationType.INVENTORY_RESERVED);
         
         logger.info("Service C: Inventory check completed for order {}", orderId);
         return "Service C: Stock available for order " + orderId;
@@ -52,6 +74,12 @@ public class ServiceCController {
         return "Service C is running";
     }
     
+    private int loadStockLevel(String orderId) {
+        logger.debug("Service C: Inventory cache miss for order {}", orderId);
+        queryDatabase(orderId);
+        return checkStockLevel(orderId);
+    }
+    
     @Observed(name = "service-c.query-database")
     private void queryDatabase(String orderId) {
         logger.debug("Service C: Querying database for order {}", orderId);
@@ -73,41 +101,47 @@ public class ServiceCController {
         return 100 + orderId.hashCode() % 50;
     }
     
+    /**
+     * Reserves stock for the order and returns the stock level left after the reservation.
+     */
     @Observed(name = "service-c.reserve-inventory")
-    private void reserveInventory(String orderId, int quantity) {
-        logger.debug("Service C: Reserving {} units for order {}", quantity, orderId);
+    private int reserveInventory(String orderId, int stockLevel) {
+        logger.debug("Service C: Reserving {} of {} units for order {}", RESERVED_UNITS, stockLevel, orderId);
         try {
             Thread.sleep(30);
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        return stockLevel - RESERVED_UNITS;
     }
     
+    /**
+     * Writes the post-reservation stock level through, so the next lookup is served from the cache.
+     */
     @Observed(name = "service-c.update-cache")
-    private void updateInventoryCache(String orderId) {
-        logger.debug("Service C: Updating cache for order {}", orderId);
-        try {
-            Thread.sleep(20);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+    private void updateInventoryCache(String orderId, int stockLevel) {
+        logger.debug("Service C: Updating cache for order {}: {} units", orderId, stockLevel);
+        inventoryCache.put(orderId, stockLevel);
     }
     
     @Observed(name = "service-c.send-async-notification")
-    private void sendAsyncNotification(String orderId, String eventType) {
+    private void sendAsyncNotification(String orderId, NotificationType eventType) {
         logger.info("Service C: Sending async notification to Service D for order {}", orderId);
         try {
             NotificationRequest notification = new NotificationRequest();
             notification.setOrderId(orderId);
             notification.setType(eventType);
-            notification.setStatus("RESERVED");
-            notification.setChannel("PUSH");
+            notification.setStatus(NotificationStatus.RESERVED);
+            notification.setChannel(NotificationChannel.PUSH);
             notification.setCallbackRequired(false);
             
-            rabbitTemplate.convertAndSend("notification-queue", notification);
-            logger.info("Service C: Notification sent to queue");
+            if (notificationPublisher.publish(NotificationRouting.EXCHANGE, NotificationRouting.routingKey(notification),
+                notification)) {
+                logger.info("Service C: Notification queued for publishing");
+            }
         } catch (Exception e) {
             logger.warn("Service C: Failed to send async notification: {}", e.getMessage());
+            errorTagger.tag(ErrorType.MESSAGING, e.getMessage());
         }
     }
 }
@@ -0,0 +1,76 @@
+package com.example.common.concurrent;
+
+import java.util.Collection;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded lock-free queue for many producers and a single consumer. Producers claim a slot with
+ * one CAS and never block; {@link #offer} returns {@code false} when the buffer is full. Only one
+ * thread may call {@link #drainTo}.
+ */
+public class MpscRingBuffer<E> {
+    
+    private final AtomicReferenceArray<E> slots;
+    
+    private final int mask;
+    
+    private final AtomicLong tail = new AtomicLong();
+    
+    private final AtomicLong head = new AtomicLong();
+    
+    public MpscRingBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        int size = Integer.highestOneBit(capacity);
+        if (size < capacity) {
+            size <<= 1;
+        }
+        this.slots = new AtomicReferenceArray<>(size);
+        this.mask = size - 1;
+    }
+    
+    public boolean offer(E element) {
+        long claimed;
+        do {
+            claimed = tail.get();
+            if (claimed - head.get() >= slots.length()) {
+                return false;
+            }
+        } while (!tail.compareAndSet(claimed, claimed + 1));
+        slots.lazySet((int) claimed & mask, element);
+        return true;
+    }
+    
+    /**
+     * Moves up to {@code maxElements} into {@code target}. Stops early at a slot that was claimed
+     * but not yet written; the element is picked up by the next drain.
+     */
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        long position = head.get();
+        int drained = 0;
+        while (drained < maxElements) {
+            int index = (int) position & mask;
+            E element = slots.get(index);
+            if (element == null) {
+                break;
+            }
+            slots.lazySet(index, null);
+            target.add(element);
+            position++;
+            drained++;
+        }
+        // Published after the slots were cleared, so producers never see a freed slot still in use.
+        head.lazySet(position);
+        return drained;
+    }
+    
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+    
+    public int capacity() {
+        return slots.length();
+    }
+}
@@ -0,0 +1,121 @@
+package com.example.common.concurrent;
+
+import com.github.benmanes.caffeine.cache.AsyncCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Deduplicates concurrent identical calls. The first caller for an operation and key runs the
+ * work on its own thread; callers arriving while it runs, or within {@code retention} after it
+ * succeeded, get the same result. Failures are not retained.
+ */
+public class SingleFlight {
+    
+    private final AsyncCache<String, Object> calls;
+    
+    private final MeterRegistry meterRegistry;
+    
+    private final Map<String, Counters> counters = new ConcurrentHashMap<>();
+    
+    public SingleFlight(MeterRegistry meterRegistry, SingleFlightProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.calls = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getRetention())
+            .buildAsync();
+    }
+    
+    @SuppressWarnings("unchecked")
+    public <T> T execute(String operation, String key, Supplier<T> work) {
+        Counters operationCounters = counters.computeIfAbsent(operation, this::registerCounters);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.asMap().putIfAbsent(operation + ':' + key, call);
+        if (inFlight != null) {
+            operationCounters.shared().increment();
+            return (T) await(inFlight);
+        }
+        
+        operationCounters.executed().increment();
+        try {
+            T result = work.get();
+            call.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    /**
+     * Non-blocking form of {@link #execute} for callers that must not wait, such as reactive
+     * handlers: {@code work} starts an asynchronous call, and later callers share its future.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> CompletableFuture<T> executeAsync(String operation, String key, Supplier<CompletableFuture<T>> work) {
+        Counters operationCounters = counters.computeIfAbsent(operation, this::registerCounters);
+        CompletableFuture<Object> call = new CompletableFuture<>();
+        CompletableFuture<Object> inFlight = calls.asMap().putIfAbsent(operation + ':' + key, call);
+        if (inFlight != null) {
+            operationCounters.shared().increment();
+            return inFlight.thenApply(result -> (T) result);
+        }
+        
+        operationCounters.executed().increment();
+        try {
+            work.get().whenComplete((result, error) -> {
+                if (error != null) {
+                    call.completeExceptionally(error);
+                } else {
+                    call.complete(result);
+                }
+            });
+        } catch (RuntimeException | Error e) {
+            call.completeExceptionally(e);
+            throw e;
+        }
+        return call.thenApply(result -> (T) result);
+    }
+    
+    public void run(String operation, String key, Runnable work) {
+        execute(operation, key, () -> {
+            work.run();
+            return Boolean.TRUE;
+        });
+    }
+    
+    private Object await(CompletableFuture<Object> call) {
+        try {
+            return call.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+    
+    private Counters registerCounters(String operation) {
+        return new Counters(
+            Counter.builder("single-flight.calls")
+                .description("Calls that ran the work themselves")
+                .tag("operation", operation)
+                .tag("result", "executed")
+                .register(meterRegistry),
+            Counter.builder("single-flight.calls")
+                .description("Calls answered with the result of an identical in-flight or recent call")
+                .tag("operation", operation)
+                .tag("result", "deduplicated")
+                .register(meterRegistry)
+        );
+    }
+    
+    private record Counters(Counter executed, Counter shared) {
+    }
+}
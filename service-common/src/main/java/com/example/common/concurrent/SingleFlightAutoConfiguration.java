@@ -0,0 +1,18 @@
+package com.example.common.concurrent;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@EnableConfigurationProperties(SingleFlightProperties.class)
+public class SingleFlightAutoConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public SingleFlight singleFlight(MeterRegistry meterRegistry, SingleFlightProperties properties) {
+        return new SingleFlight(meterRegistry, properties);
+    }
+}
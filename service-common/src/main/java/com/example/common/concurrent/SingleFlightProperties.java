@@ -0,0 +1,29 @@
+package com.example.common.concurrent;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "single-flight")
+public class SingleFlightProperties {
+    
+    private Duration retention = Duration.ofSeconds(1);
+    
+    private long maximumSize = 10_000;
+    
+    public Duration getRetention() {
+        return retention;
+    }
+    
+    public void setRetention(Duration retention) {
+        this.retention = retention;
+    }
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+}
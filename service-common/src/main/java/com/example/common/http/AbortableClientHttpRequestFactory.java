@@ -0,0 +1,72 @@
+package com.example.common.http;
+
+import org.apache.hc.client5.http.classic.HttpClient;
+import org.apache.hc.core5.concurrent.Cancellable;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+import java.net.URI;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Pooled request factory whose exchanges can be aborted from another thread. Calls made inside
+ * {@link #call(Abort, Supplier)} are attached to the given {@link Abort}; aborting it cancels the
+ * exchange in progress, closing its connection instead of waiting for the read timeout, and fails
+ * any later exchange of the same call immediately.
+ */
+public class AbortableClientHttpRequestFactory extends HttpComponentsClientHttpRequestFactory {
+
+    private static final ThreadLocal<Abort> CURRENT = new ThreadLocal<>();
+
+    public AbortableClientHttpRequestFactory(HttpClient httpClient) {
+        super(httpClient);
+    }
+
+    public static <T> T call(Abort abort, Supplier<T> call) {
+        Abort previous = CURRENT.get();
+        CURRENT.set(abort);
+        try {
+            return call.get();
+        } finally {
+            if (previous != null) {
+                CURRENT.set(previous);
+            } else {
+                CURRENT.remove();
+            }
+        }
+    }
+
+    @Override
+    protected ClassicHttpRequest createHttpUriRequest(HttpMethod httpMethod, URI uri) {
+        ClassicHttpRequest request = super.createHttpUriRequest(httpMethod, uri);
+        Abort abort = CURRENT.get();
+        if (abort != null && request instanceof Cancellable cancellable) {
+            abort.attach(cancellable);
+        }
+        return request;
+    }
+
+    public static final class Abort {
+
+        private final AtomicReference<Cancellable> request = new AtomicReference<>();
+
+        private volatile boolean aborted;
+
+        private void attach(Cancellable exchange) {
+            request.set(exchange);
+            if (aborted) {
+                exchange.cancel();
+            }
+        }
+
+        public void abort() {
+            aborted = true;
+            Cancellable exchange = request.get();
+            if (exchange != null) {
+                exchange.cancel();
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.example.common.http;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "http.client")
+public class HttpClientProperties {
+    
+    private int maxConnections = 200;
+    
+    private int maxConnectionsPerRoute = 50;
+    
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    
+    private Duration readTimeout = Duration.ofSeconds(10);
+    
+    private Duration leaseTimeout = Duration.ofSeconds(1);
+    
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    
+    private Duration timeToLive = Duration.ofMinutes(5);
+    
+    private Duration validateAfterInactivity = Duration.ofSeconds(2);
+    
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+    
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+    
+    public int getMaxConnectionsPerRoute() {
+        return maxConnectionsPerRoute;
+    }
+    
+    public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+        this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+    }
+    
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+    
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+    
+    public Duration getLeaseTimeout() {
+        return leaseTimeout;
+    }
+    
+    public void setLeaseTimeout(Duration leaseTimeout) {
+        this.leaseTimeout = leaseTimeout;
+    }
+    
+    public Duration getIdleTimeout() {
+        return idleTimeout;
+    }
+    
+    public void setIdleTimeout(Duration idleTimeout) {
+        this.idleTimeout = idleTimeout;
+    }
+    
+    public Duration getTimeToLive() {
+        return timeToLive;
+    }
+    
+    public void setTimeToLive(Duration timeToLive) {
+        this.timeToLive = timeToLive;
+    }
+    
+    public Duration getValidateAfterInactivity() {
+        return validateAfterInactivity;
+    }
+    
+    public void setValidateAfterInactivity(Duration validateAfterInactivity) {
+        this.validateAfterInactivity = validateAfterInactivity;
+    }
+}
@@ -0,0 +1,27 @@
+package com.example.common.messaging;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.ObservationRegistry;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+/**
+ * Registers the notification publisher in every service. {@code amqp.publisher.batching.enabled}
+ * chooses between background batching and a synchronous pass-through to {@link RabbitTemplate}.
+ */
+@AutoConfiguration
+@ConditionalOnClass(RabbitTemplate.class)
+@EnableConfigurationProperties(BatchingPublisherProperties.class)
+public class BatchingPublisherAutoConfiguration {
+    
+    @Bean
+    public BatchingRabbitPublisher batchingRabbitPublisher(RabbitTemplate rabbitTemplate,
+                                                           ObservationRegistry observationRegistry,
+                                                           MeterRegistry meterRegistry,
+                                                           BatchingPublisherProperties properties) {
+        return new BatchingRabbitPublisher(rabbitTemplate, observationRegistry, meterRegistry, properties);
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.common.messaging;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "amqp.publisher.batching")
+public class BatchingPublisherProperties {
+    
+    private boolean enabled;
+    
+    private int batchSize = 100;
+    
+    private Duration linger = Duration.ofMillis(5);
+    
+    private int capacity = 10_000;
+    
+    private Duration confirmTimeout = Duration.ofSeconds(5);
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public Duration getLinger() {
+        return linger;
+    }
+    
+    public void setLinger(Duration linger) {
+        this.linger = linger;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    public Duration getConfirmTimeout() {
+        return confirmTimeout;
+    }
+    
+    public void setConfirmTimeout(Duration confirmTimeout) {
+        this.confirmTimeout = confirmTimeout;
+    }
+}
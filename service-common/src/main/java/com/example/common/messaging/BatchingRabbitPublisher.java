@@ -0,0 +1,242 @@
+package com.example.common.messaging;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpConnectException;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.rabbit.core.RabbitOperations;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.context.SmartLifecycle;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes messages from a background thread so callers never wait on the broker.
+ * <p>
+ * Messages are coalesced until {@code batchSize} is reached or {@code linger} has elapsed,
+ * sent on one channel and confirmed with a single {@code waitForConfirms} per batch, which
+ * requires {@code spring.rabbitmq.publisher-confirm-type=simple}. The caller's observation
+ * is reopened around each send so every message keeps its own producer span and trace headers.
+ * A batch the broker does not confirm is resent one message at a time before anything is dropped,
+ * so a message may be delivered twice.
+ * <p>
+ * With {@code enabled=false} messages are sent on the caller's thread through the template.
+ */
+public class BatchingRabbitPublisher implements SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(BatchingRabbitPublisher.class);
+    
+    private final RabbitTemplate rabbitTemplate;
+    
+    private final ObservationRegistry observationRegistry;
+    
+    private final BatchingPublisherProperties properties;
+    
+    private final BlockingQueue<PendingMessage> queue;
+    
+    private final Counter publishedCounter;
+    
+    private final Counter droppedCounter;
+    
+    private final Counter failedCounter;
+    
+    private final DistributionSummary batchSizeSummary;
+    
+    private final Timer confirmTimer;
+    
+    private volatile boolean running;
+    
+    private Thread worker;
+    
+    public BatchingRabbitPublisher(RabbitTemplate rabbitTemplate, ObservationRegistry observationRegistry,
+                                   MeterRegistry meterRegistry, BatchingPublisherProperties properties) {
+        this.rabbitTemplate = rabbitTemplate;
+        this.observationRegistry = observationRegistry;
+        this.properties = properties;
+        this.queue = new ArrayBlockingQueue<>(properties.getCapacity());
+        
+        Gauge.builder("amqp.publisher.queue.depth", queue, BlockingQueue::size)
+            .description("Messages waiting to be published")
+            .register(meterRegistry);
+        this.publishedCounter = Counter.builder("amqp.publisher.messages")
+            .tag("result", "confirmed")
+            .register(meterRegistry);
+        this.failedCounter = Counter.builder("amqp.publisher.messages")
+            .tag("result", "failed")
+            .register(meterRegistry);
+        this.droppedCounter = Counter.builder("amqp.publisher.messages")
+            .tag("result", "dropped")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("amqp.publisher.batch.size")
+            .description("Messages sent per publisher confirm")
+            .register(meterRegistry);
+        this.confirmTimer = Timer.builder("amqp.publisher.confirm.latency")
+            .description("Time from first send of a batch until the broker confirmed it")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+    }
+    
+    /**
+     * Queues a message for the default exchange; returns {@code false} if the buffer is full.
+     */
+    public boolean publish(String routingKey, Object payload) {
+        return publish("", routingKey, payload);
+    }
+    
+    public boolean publish(String exchange, String routingKey, Object payload) {
+        if (!properties.isEnabled()) {
+            return sendDirectly(exchange, routingKey, payload);
+        }
+        PendingMessage message = new PendingMessage(exchange, routingKey, payload,
+            observationRegistry.getCurrentObservation());
+        if (!queue.offer(message)) {
+            droppedCounter.increment();
+            logger.warn("Publisher buffer full ({} messages), dropping message for {}", properties.getCapacity(), routingKey);
+            return false;
+        }
+        return true;
+    }
+    
+    private boolean sendDirectly(String exchange, String routingKey, Object payload) {
+        try {
+            rabbitTemplate.convertAndSend(exchange, routingKey, payload);
+            publishedCounter.increment();
+            return true;
+        } catch (AmqpException e) {
+            failedCounter.increment();
+            logger.warn("Failed to publish message for {}: {}", routingKey, e.getMessage());
+            return false;
+        }
+    }
+    
+    private void drain() {
+        List<PendingMessage> batch = new ArrayList<>(properties.getBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+    
+    private void fillBatch(List<PendingMessage> batch) throws InterruptedException {
+        long deadline = System.nanoTime() + properties.getLinger().toNanos();
+        while (batch.size() < properties.getBatchSize()) {
+            queue.drainTo(batch, properties.getBatchSize() - batch.size());
+            long remaining = deadline - System.nanoTime();
+            if (batch.size() >= properties.getBatchSize() || remaining <= 0) {
+                return;
+            }
+            PendingMessage next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+        }
+    }
+    
+    private void sendBatch(List<PendingMessage> batch) {
+        long start = System.nanoTime();
+        try {
+            rabbitTemplate.invoke(operations -> {
+                for (PendingMessage message : batch) {
+                    send(operations, message);
+                }
+                operations.waitForConfirmsOrDie(properties.getConfirmTimeout().toMillis());
+                return null;
+            });
+            confirmTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            batchSizeSummary.record(batch.size());
+            publishedCounter.increment(batch.size());
+        } catch (Exception e) {
+            logger.warn("Failed to publish batch of {} messages, resending individually: {}", batch.size(), e.getMessage());
+            resendIndividually(batch);
+        }
+    }
+    
+    private void resendIndividually(List<PendingMessage> batch) {
+        for (int i = 0; i < batch.size(); i++) {
+            PendingMessage message = batch.get(i);
+            try {
+                rabbitTemplate.invoke(operations -> {
+                    send(operations, message);
+                    operations.waitForConfirmsOrDie(properties.getConfirmTimeout().toMillis());
+                    return null;
+                });
+                publishedCounter.increment();
+            } catch (AmqpConnectException e) {
+                // Broker unreachable: the rest of the batch would fail the same way
+                failedCounter.increment(batch.size() - i);
+                logger.warn("Broker unavailable, dropping {} messages: {}", batch.size() - i, e.getMessage());
+                return;
+            } catch (Exception e) {
+                failedCounter.increment();
+                logger.warn("Failed to publish message for {}: {}", message.routingKey(), e.getMessage());
+            }
+        }
+    }
+    
+    private void send(RabbitOperations operations, PendingMessage message) {
+        if (message.parentObservation() == null) {
+            operations.convertAndSend(message.exchange(), message.routingKey(), message.payload());
+            return;
+        }
+        try (Observation.Scope scope = message.parentObservation().openScope()) {
+            operations.convertAndSend(message.exchange(), message.routingKey(), message.payload());
+        }
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        if (!properties.isEnabled()) {
+            return;
+        }
+        worker = new Thread(this::drain, "amqp-batching-publisher");
+        worker.setDaemon(true);
+        worker.start();
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        if (worker == null) {
+            return;
+        }
+        try {
+            worker.join(properties.getConfirmTimeout().toMillis() * 2);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    private record PendingMessage(String exchange, String routingKey, Object payload,
+                                  Observation parentObservation) {
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.common.observation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Records an error on the current span and in the {@code service.errors} counter in one call.
+ * The span is resolved once and the counters are registered up front, one per
+ * {@link ErrorType}, so the error path does no meter lookups.
+ */
+public class ErrorTagger {
+    
+    public static final String ERROR = "error";
+    
+    public static final String ERROR_TYPE = "error.type";
+    
+    public static final String ERROR_MESSAGE = "error.message";
+    
+    private final Tracer tracer;
+    
+    private final Map<ErrorType, Counter> counters = new EnumMap<>(ErrorType.class);
+    
+    public ErrorTagger(Tracer tracer, MeterRegistry meterRegistry) {
+        this.tracer = tracer;
+        for (ErrorType type : ErrorType.values()) {
+            counters.put(type, Counter.builder("service.errors")
+                .description("Errors recorded on request and processing paths")
+                .tag("type", type.tagValue())
+                .register(meterRegistry));
+        }
+    }
+    
+    /**
+     * Callers pass {@code e.getMessage()}, which may be null; the type is recorded as the message
+     * then, since Brave rejects null tag values.
+     */
+    public void tag(ErrorType type, String message) {
+        Span span = tracer.currentSpan();
+        if (span != null) {
+            span.tag(ERROR, "true")
+                .tag(ERROR_TYPE, type.tagValue())
+                .tag(ERROR_MESSAGE, message != null ? message : type.tagValue());
+        }
+        counters.get(type).increment();
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.common.observation;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.tracing.Tracer;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@ConditionalOnClass(Tracer.class)
+public class ErrorTaggerAutoConfiguration {
+    
+    @Bean
+    @ConditionalOnMissingBean
+    public ErrorTagger errorTagger(ObjectProvider<Tracer> tracer, MeterRegistry meterRegistry) {
+        return new ErrorTagger(tracer.getIfAvailable(() -> Tracer.NOOP), meterRegistry);
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.common.observation;
+
+/**
+ * Low-cardinality error categories, used as the {@code error.type} span tag and metric tag.
+ */
+public enum ErrorType {
+    
+    TIMEOUT("timeout"),
+    VALIDATION("validation"),
+    NOT_FOUND("not_found"),
+    DATABASE("database"),
+    DOWNSTREAM("downstream"),
+    MESSAGING("messaging");
+    
+    private final String tagValue;
+    
+    ErrorType(String tagValue) {
+        this.tagValue = tagValue;
+    }
+    
+    public String tagValue() {
+        return tagValue;
+    }
+}
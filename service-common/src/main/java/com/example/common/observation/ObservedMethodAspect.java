@@ -0,0 +1,48 @@
+package com.example.common.observation;
+
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.observation.annotation.Observed;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+
+/**
+ * Compile-time woven counterpart of Micrometer's {@code ObservedAspect}. Because the advice is
+ * woven into the annotated method itself, it also applies to private methods and to calls made
+ * through {@code this}, which a Spring AOP proxy never sees.
+ * <p>
+ * AspectJ creates the aspect instance, so the registry is handed over by
+ * {@link ObservedMethodAspectAutoConfiguration}; until then observations are no-ops.
+ */
+@Aspect
+public class ObservedMethodAspect {
+    
+    private volatile ObservationRegistry observationRegistry = ObservationRegistry.NOOP;
+    
+    public void setObservationRegistry(ObservationRegistry observationRegistry) {
+        this.observationRegistry = observationRegistry;
+    }
+    
+    @Around("execution(@io.micrometer.observation.annotation.Observed * *(..)) && @annotation(observed)")
+    public Object observe(ProceedingJoinPoint joinPoint, Observed observed) throws Throwable {
+        Observation observation = Observation.createNotStarted(observed.name(), observationRegistry);
+        if (!observed.contextualName().isEmpty()) {
+            observation.contextualName(observed.contextualName());
+        }
+        String[] keyValues = observed.lowCardinalityKeyValues();
+        for (int i = 0; i + 1 < keyValues.length; i += 2) {
+            observation.lowCardinalityKeyValue(keyValues[i], keyValues[i + 1]);
+        }
+        
+        observation.start();
+        try (Observation.Scope ignored = observation.openScope()) {
+            return joinPoint.proceed();
+        } catch (Throwable e) {
+            observation.error(e);
+            throw e;
+        } finally {
+            observation.stop();
+        }
+    }
+}
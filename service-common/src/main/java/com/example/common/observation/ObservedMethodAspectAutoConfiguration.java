@@ -0,0 +1,19 @@
+package com.example.common.observation;
+
+import io.micrometer.observation.ObservationRegistry;
+import org.aspectj.lang.Aspects;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration
+@ConditionalOnClass(Aspects.class)
+public class ObservedMethodAspectAutoConfiguration {
+    
+    @Bean
+    public ObservedMethodAspect observedMethodAspect(ObservationRegistry observationRegistry) {
+        ObservedMethodAspect aspect = Aspects.aspectOf(ObservedMethodAspect.class);
+        aspect.setObservationRegistry(observationRegistry);
+        return aspect;
+    }
+}
@@ -0,0 +1,296 @@
+package com.example.common.tracing;
+
+import com.example.common.concurrent.MpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.SmartLifecycle;
+import zipkin2.Span;
+import zipkin2.codec.SpanBytesEncoder;
+import zipkin2.reporter.Reporter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Reports spans without ever blocking the thread that finished them. Spans go into a bounded
+ * lock-free ring buffer and are dropped, and counted, when it is full. One background thread
+ * sends them in batches of {@code batch-size} or whatever arrived within {@code flush-interval},
+ * encoding on that thread, rather than the caller's, straight into a message buffer reused for
+ * every batch. Heap use is bounded by {@code buffer-size} spans plus one batch in flight.
+ * <p>
+ * With a {@link SpanSpool}, a batch the collector did not take is written to disk instead of
+ * dropped, and so is every batch after it until a second thread has replayed the spool. A batch
+ * the collector rejects outright (a 4xx) is dropped rather than spooled or retried.
+ */
+public class AsyncSpanExporter implements Reporter<Span>, SmartLifecycle {
+    
+    private static final Logger logger = LoggerFactory.getLogger(AsyncSpanExporter.class);
+    
+    private final HttpClientSpanSender sender;
+    
+    private final SpanBytesEncoder encoder;
+    
+    private final SpanExportProperties properties;
+    
+    private final MpscRingBuffer<Span> buffer;
+    
+    private final Counter sentCounter;
+    
+    private final Counter bufferFullCounter;
+    
+    private final Counter sendFailedCounter;
+    
+    private final Counter rejectedCounter;
+    
+    private final Counter bytesCounter;
+    
+    private final DistributionSummary batchSizeSummary;
+    
+    private final Timer sendTimer;
+    
+    private final SpanSpool spool;
+    
+    private final Counter spooledCounter;
+    
+    private final Counter spoolFullCounter;
+    
+    private final Counter replayedCounter;
+    
+    private volatile boolean running;
+    
+    private volatile Thread worker;
+    
+    private volatile Thread replayer;
+    
+    private byte[] messageBuffer = new byte[64 * 1024];
+    
+    /**
+     * @param spool where batches wait while the collector is unavailable, or {@code null} to drop them
+     */
+    public AsyncSpanExporter(HttpClientSpanSender sender, SpanBytesEncoder encoder, SpanSpool spool,
+                             MeterRegistry meterRegistry, SpanExportProperties properties) {
+        this.sender = sender;
+        this.encoder = encoder;
+        this.spool = spool;
+        this.properties = properties;
+        this.buffer = new MpscRingBuffer<>(properties.getBufferSize());
+        
+        Gauge.builder("tracing.export.buffer.size", buffer, MpscRingBuffer::size)
+            .description("Spans waiting to be exported")
+            .register(meterRegistry);
+        this.sentCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "sent")
+            .tag("reason", "none")
+            .register(meterRegistry);
+        this.bufferFullCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "dropped")
+            .tag("reason", "buffer-full")
+            .register(meterRegistry);
+        this.sendFailedCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "dropped")
+            .tag("reason", "send-failed")
+            .register(meterRegistry);
+        this.rejectedCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "dropped")
+            .tag("reason", "rejected")
+            .register(meterRegistry);
+        this.bytesCounter = Counter.builder("tracing.export.bytes")
+            .description("Encoded span bytes sent, before compression")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        this.batchSizeSummary = DistributionSummary.builder("tracing.export.batch.size")
+            .description("Spans per request to the collector")
+            .register(meterRegistry);
+        this.sendTimer = Timer.builder("tracing.export.send.latency")
+            .description("Time to encode and post one batch")
+            .publishPercentiles(0.5, 0.99)
+            .register(meterRegistry);
+        this.spooledCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "spooled")
+            .tag("reason", "collector-unavailable")
+            .register(meterRegistry);
+        this.spoolFullCounter = Counter.builder("tracing.export.spans")
+            .tag("result", "dropped")
+            .tag("reason", "spool-full")
+            .register(meterRegistry);
+        this.replayedCounter = Counter.builder("tracing.spool.replayed")
+            .description("Spooled spans delivered once the collector was back")
+            .register(meterRegistry);
+        if (spool != null) {
+            Gauge.builder("tracing.spool.depth", spool, SpanSpool::pendingSpans)
+                .description("Spans on disk waiting to be replayed")
+                .register(meterRegistry);
+            Gauge.builder("tracing.spool.size", spool, SpanSpool::sizeInBytes)
+                .description("Disk space held by spool segments")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        }
+    }
+    
+    @Override
+    public void report(Span span) {
+        if (!buffer.offer(span)) {
+            bufferFullCounter.increment();
+            return;
+        }
+        if (buffer.size() == properties.getBatchSize()) {
+            LockSupport.unpark(worker);
+        }
+    }
+    
+    private void export() {
+        List<Span> batch = new ArrayList<>(properties.getBatchSize());
+        long flushIntervalNanos = properties.getFlushInterval().toNanos();
+        while (running || buffer.size() > 0) {
+            if (running && buffer.size() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, flushIntervalNanos);
+            }
+            while (buffer.drainTo(batch, properties.getBatchSize()) > 0) {
+                send(batch);
+                batch.clear();
+                if (running && buffer.size() < properties.getBatchSize()) {
+                    break;
+                }
+            }
+        }
+    }
+    
+    private void send(List<Span> batch) {
+        long start = System.nanoTime();
+        int from = 0;
+        int messageSize = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            // Upper bound: each span counted as a one-element list, framing included.
+            int spanSize = sender.encoding().listSizeInBytes(encoder.sizeInBytes(batch.get(i)));
+            if (i > from && messageSize + spanSize > sender.messageMaxBytes()) {
+                post(batch.subList(from, i), messageSize);
+                from = i;
+                messageSize = 0;
+            }
+            messageSize += spanSize;
+        }
+        post(batch.subList(from, batch.size()), messageSize);
+        sendTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+    
+    private void post(List<Span> spans, int maxMessageSize) {
+        if (messageBuffer.length < maxMessageSize) {
+            messageBuffer = new byte[Math.max(maxMessageSize, messageBuffer.length * 2)];
+        }
+        int length = encoder.encodeList(spans, messageBuffer, 0);
+        if (spool != null && spool.hasPending()) {
+            // Collector still unavailable, or not caught up yet: queue behind what is already spooled.
+            spool(spans.size(), length);
+            return;
+        }
+        try {
+            sender.send(messageBuffer, 0, length);
+            sentCounter.increment(spans.size());
+            bytesCounter.increment(length);
+            batchSizeSummary.record(spans.size());
+        } catch (HttpClientSpanSender.RejectedException e) {
+            rejectedCounter.increment(spans.size());
+            logger.warn("Dropped {} spans: {}", spans.size(), e.getMessage());
+        } catch (Exception e) {
+            if (spool != null) {
+                logger.warn("Export to Zipkin failed, spooling spans to disk until it is back: {}", e.getMessage());
+                spool(spans.size(), length);
+                return;
+            }
+            sendFailedCounter.increment(spans.size());
+            logger.warn("Dropped {} spans, export to Zipkin failed: {}", spans.size(), e.getMessage());
+        }
+    }
+    
+    private void spool(int spanCount, int length) {
+        try {
+            if (spool.append(messageBuffer, length, spanCount)) {
+                spooledCounter.increment(spanCount);
+            } else {
+                spoolFullCounter.increment(spanCount);
+            }
+        } catch (IOException e) {
+            sendFailedCounter.increment(spanCount);
+            logger.warn("Dropped {} spans, could not write to span spool: {}", spanCount, e.getMessage());
+        }
+    }
+    
+    private void replay() {
+        byte[] replayBuffer = new byte[64 * 1024];
+        long retryNanos = properties.getSpool().getReplayInterval().toNanos();
+        while (running) {
+            try {
+                SpanSpool.Record record = spool.peek(replayBuffer);
+                if (record == null) {
+                    LockSupport.parkNanos(this, retryNanos);
+                    continue;
+                }
+                replayBuffer = record.message();
+                try {
+                    sender.send(record.message(), 0, record.length());
+                    replayedCounter.increment(record.spanCount());
+                } catch (HttpClientSpanSender.RejectedException e) {
+                    // Retrying would block every record behind this one
+                    rejectedCounter.increment(record.spanCount());
+                    logger.warn("Dropped {} spooled spans: {}", record.spanCount(), e.getMessage());
+                }
+                spool.commit();
+            } catch (IOException e) {
+                // Connection errors and 5xx: keep the record and retry later
+                LockSupport.parkNanos(this, retryNanos);
+            }
+        }
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+        worker = new Thread(this::export, "zipkin-span-exporter");
+        worker.setDaemon(true);
+        worker.start();
+        if (spool != null) {
+            replayer = new Thread(this::replay, "zipkin-span-replayer");
+            replayer.setDaemon(true);
+            replayer.start();
+        }
+    }
+    
+    @Override
+    public void stop() {
+        running = false;
+        LockSupport.unpark(worker);
+        if (replayer != null) {
+            LockSupport.unpark(replayer);
+        }
+        try {
+            worker.join(properties.getReadTimeout().toMillis() * 2);
+            // The spool is closed once this returns, so it must no longer be in use
+            if (replayer != null) {
+                replayer.join(properties.getReadTimeout().toMillis() * 2);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    /**
+     * Stops after the web server and listeners, so spans of in-flight requests are still sent.
+     */
+    @Override
+    public int getPhase() {
+        return Integer.MIN_VALUE;
+    }
+}
@@ -0,0 +1,60 @@
+package com.example.common.tracing;
+
+import brave.sampler.RateLimitingSampler;
+import brave.sampler.Sampler;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Caps how many new traces per second each endpoint starts. Brave only asks the sampler when
+ * a span has no parent decision, so requests that arrive with trace headers (including
+ * RabbitMQ deliveries) keep the decision made at the root.
+ * <p>
+ * The endpoint is taken from {@link SamplingEndpointFilter}; roots started outside a request
+ * use the default rate.
+ */
+public class EndpointRateLimitingSampler extends Sampler {
+    
+    private static final ThreadLocal<String> CURRENT_ENDPOINT = new ThreadLocal<>();
+    
+    private final List<Rule> rules;
+    
+    private final Sampler defaultSampler;
+    
+    public EndpointRateLimitingSampler(SamplingProperties properties) {
+        this.rules = properties.getEndpoints().entrySet().stream()
+            .map(entry -> new Rule(entry.getKey(), samplerFor(entry.getValue())))
+            .sorted(Comparator.comparingInt((Rule rule) -> rule.prefix().length()).reversed())
+            .toList();
+        this.defaultSampler = samplerFor(properties.getDefaultRate());
+    }
+    
+    static void setCurrentEndpoint(String path) {
+        CURRENT_ENDPOINT.set(path);
+    }
+    
+    static void clearCurrentEndpoint() {
+        CURRENT_ENDPOINT.remove();
+    }
+    
+    @Override
+    public boolean isSampled(long traceId) {
+        String path = CURRENT_ENDPOINT.get();
+        if (path != null) {
+            for (Rule rule : rules) {
+                if (path.startsWith(rule.prefix())) {
+                    return rule.sampler().isSampled(traceId);
+                }
+            }
+        }
+        return defaultSampler.isSampled(traceId);
+    }
+    
+    private static Sampler samplerFor(int tracesPerSecond) {
+        return tracesPerSecond <= 0 ? Sampler.NEVER_SAMPLE : RateLimitingSampler.create(tracesPerSecond);
+    }
+    
+    private record Rule(String prefix, Sampler sampler) {
+    }
+}
@@ -0,0 +1,196 @@
+package com.example.common.tracing;
+
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.io.entity.ByteArrayEntity;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import zipkin2.Call;
+import zipkin2.Callback;
+import zipkin2.codec.Encoding;
+import zipkin2.reporter.BytesMessageEncoder;
+import zipkin2.reporter.Sender;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Posts span batches to Zipkin over its own small keep-alive pool, so exporting never waits for
+ * or holds a connection meant for inter-service calls. Bodies are gzipped when enabled, into a
+ * buffer reused across calls; {@code enqueue} runs synchronously.
+ */
+public class HttpClientSpanSender extends Sender {
+    
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+    
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    
+    private final String endpoint;
+    
+    private final Encoding encoding;
+    
+    private final ContentType contentType;
+    
+    private final boolean compression;
+    
+    private final int messageMaxBytes;
+    
+    private final CloseableHttpClient httpClient;
+    
+    private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+    
+    private final CRC32 crc = new CRC32();
+    
+    private byte[] compressed = new byte[64 * 1024];
+    
+    public HttpClientSpanSender(String endpoint, Encoding encoding, SpanExportProperties properties) {
+        this.endpoint = endpoint;
+        this.encoding = encoding;
+        this.contentType = encoding == Encoding.PROTO3
+            ? ContentType.create("application/x-protobuf")
+            : ContentType.APPLICATION_JSON;
+        this.compression = properties.isCompression();
+        this.messageMaxBytes = (int) properties.getMessageMaxSize().toBytes();
+        this.httpClient = HttpClients.custom()
+            .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(properties.getMaxConnections())
+                .setMaxConnPerRoute(properties.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                    .setConnectTimeout(Timeout.of(properties.getConnectTimeout()))
+                    .setSocketTimeout(Timeout.of(properties.getReadTimeout()))
+                    .build())
+                .build())
+            .setDefaultRequestConfig(RequestConfig.custom()
+                .setResponseTimeout(Timeout.of(properties.getReadTimeout()))
+                .build())
+            .evictIdleConnections(TimeValue.ofSeconds(30))
+            .disableAutomaticRetries()
+            .build();
+    }
+    
+    @Override
+    public Encoding encoding() {
+        return encoding;
+    }
+    
+    @Override
+    public int messageMaxBytes() {
+        return messageMaxBytes;
+    }
+    
+    @Override
+    public int messageSizeInBytes(List<byte[]> encodedSpans) {
+        return encoding.listSizeInBytes(encodedSpans);
+    }
+    
+    @Override
+    public Call<Void> sendSpans(List<byte[]> encodedSpans) {
+        return new PostCall(BytesMessageEncoder.forEncoding(encoding).encode(encodedSpans));
+    }
+    
+    @Override
+    public void close() throws IOException {
+        httpClient.close();
+        deflater.end();
+    }
+    
+    /**
+     * Posts {@code length} bytes of an encoded message. The compressed body is written into a
+     * buffer and deflater kept for the next call, hence one post at a time.
+     */
+    public synchronized void send(byte[] message, int offset, int length) throws IOException {
+        HttpPost request = new HttpPost(endpoint);
+        if (compression) {
+            int compressedLength = gzip(message, offset, length);
+            request.setEntity(new ByteArrayEntity(compressed, 0, compressedLength, contentType, "gzip"));
+        } else {
+            request.setEntity(new ByteArrayEntity(message, offset, length, contentType));
+        }
+        httpClient.execute(request, response -> {
+            int status = response.getCode();
+            if (status >= 400 && status < 500 && status != 408 && status != 429) {
+                throw new RejectedException("Zipkin rejected the message with " + status + " at " + endpoint);
+            }
+            if (status >= 300) {
+                throw new IOException("Zipkin responded " + status + " to " + endpoint);
+            }
+            return null;
+        });
+    }
+    
+    private int gzip(byte[] message, int offset, int length) {
+        deflater.reset();
+        deflater.setInput(message, offset, length);
+        deflater.finish();
+        crc.reset();
+        crc.update(message, offset, length);
+        
+        System.arraycopy(GZIP_HEADER, 0, compressed, 0, GZIP_HEADER.length);
+        int position = GZIP_HEADER.length;
+        while (!deflater.finished()) {
+            if (position == compressed.length - GZIP_TRAILER_LENGTH) {
+                compressed = Arrays.copyOf(compressed, compressed.length * 2);
+            }
+            position += deflater.deflate(compressed, position, compressed.length - GZIP_TRAILER_LENGTH - position);
+        }
+        writeIntLittleEndian((int) crc.getValue(), position);
+        writeIntLittleEndian(length, position + 4);
+        return position + GZIP_TRAILER_LENGTH;
+    }
+    
+    private void writeIntLittleEndian(int value, int position) {
+        compressed[position] = (byte) value;
+        compressed[position + 1] = (byte) (value >>> 8);
+        compressed[position + 2] = (byte) (value >>> 16);
+        compressed[position + 3] = (byte) (value >>> 24);
+    }
+    
+    private final class PostCall extends Call.Base<Void> {
+        
+        private final byte[] message;
+        
+        private PostCall(byte[] message) {
+            this.message = message;
+        }
+        
+        @Override
+        protected Void doExecute() throws IOException {
+            send(message, 0, message.length);
+            return null;
+        }
+        
+        @Override
+        protected void doEnqueue(Callback<Void> callback) {
+            try {
+                send(message, 0, message.length);
+                callback.onSuccess(null);
+            } catch (IOException | RuntimeException e) {
+                callback.onError(e);
+            }
+        }
+        
+        @Override
+        public Call<Void> clone() {
+            return new PostCall(message);
+        }
+    }
+    
+    /**
+     * The collector refused the message itself (a 4xx other than 408 or 429), so sending it again
+     * cannot succeed.
+     */
+    public static final class RejectedException extends IOException {
+        
+        public RejectedException(String message) {
+            super(message);
+        }
+    }
+}
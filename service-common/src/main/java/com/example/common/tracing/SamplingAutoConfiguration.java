@@ -0,0 +1,35 @@
+package com.example.common.tracing;
+
+import brave.sampler.Sampler;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.Ordered;
+
+/**
+ * Replaces Boot's probability sampler with {@link EndpointRateLimitingSampler}. Runs before
+ * {@code BraveAutoConfiguration}, whose sampler backs off when one is already defined.
+ */
+@AutoConfiguration(beforeName = "org.springframework.boot.actuate.autoconfigure.tracing.BraveAutoConfiguration")
+@ConditionalOnClass(Sampler.class)
+@ConditionalOnProperty(prefix = "tracing.sampling", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SamplingProperties.class)
+public class SamplingAutoConfiguration {
+    
+    @Bean
+    public EndpointRateLimitingSampler endpointRateLimitingSampler(SamplingProperties properties) {
+        return new EndpointRateLimitingSampler(properties);
+    }
+    
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<SamplingEndpointFilter> samplingEndpointFilter() {
+        FilterRegistrationBean<SamplingEndpointFilter> registration = new FilterRegistrationBean<>(new SamplingEndpointFilter());
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
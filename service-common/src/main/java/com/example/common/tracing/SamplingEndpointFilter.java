@@ -0,0 +1,27 @@
+package com.example.common.tracing;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Exposes the request path to {@link EndpointRateLimitingSampler}. Registered ahead of the
+ * server observation filter, which is where the root span and its sampling decision are made.
+ */
+public class SamplingEndpointFilter extends OncePerRequestFilter {
+    
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EndpointRateLimitingSampler.setCurrentEndpoint(request.getRequestURI());
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            EndpointRateLimitingSampler.clearCurrentEndpoint();
+        }
+    }
+}
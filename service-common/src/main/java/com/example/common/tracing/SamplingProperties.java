@@ -0,0 +1,122 @@
+package com.example.common.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "tracing.sampling")
+public class SamplingProperties {
+    
+    private boolean enabled;
+    
+    /**
+     * Traces per second started by requests that match no endpoint rule.
+     */
+    private int defaultRate = 10;
+    
+    /**
+     * Traces per second keyed by request path prefix; the longest matching prefix wins and
+     * 0 samples none of its requests up front.
+     */
+    private Map<String, Integer> endpoints = new LinkedHashMap<>();
+    
+    private final Tail tail = new Tail();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getDefaultRate() {
+        return defaultRate;
+    }
+    
+    public void setDefaultRate(int defaultRate) {
+        this.defaultRate = defaultRate;
+    }
+    
+    public Map<String, Integer> getEndpoints() {
+        return endpoints;
+    }
+    
+    public void setEndpoints(Map<String, Integer> endpoints) {
+        this.endpoints = endpoints;
+    }
+    
+    public Tail getTail() {
+        return tail;
+    }
+    
+    /**
+     * Second look at traces the rate limit dropped, made once they have finished locally.
+     */
+    public static class Tail {
+        
+        private boolean enabled = true;
+        
+        /**
+         * How long a trace must go without a span ending before it is considered complete.
+         */
+        private Duration decisionWait = Duration.ofSeconds(2);
+        
+        /**
+         * Traces spanning longer than this, first span start to last span end, are kept.
+         */
+        private Duration latencyThreshold = Duration.ofMillis(500);
+        
+        /**
+         * Fraction of the remaining traces kept regardless, chosen by trace ID.
+         */
+        private double keepRate = 0.01;
+        
+        /**
+         * Upper bound on buffered spans; the oldest traces are decided early beyond it.
+         */
+        private int maxSpans = 10_000;
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Duration getDecisionWait() {
+            return decisionWait;
+        }
+        
+        public void setDecisionWait(Duration decisionWait) {
+            this.decisionWait = decisionWait;
+        }
+        
+        public Duration getLatencyThreshold() {
+            return latencyThreshold;
+        }
+        
+        public void setLatencyThreshold(Duration latencyThreshold) {
+            this.latencyThreshold = latencyThreshold;
+        }
+        
+        public double getKeepRate() {
+            return keepRate;
+        }
+        
+        public void setKeepRate(double keepRate) {
+            this.keepRate = keepRate;
+        }
+        
+        public int getMaxSpans() {
+            return maxSpans;
+        }
+        
+        public void setMaxSpans(int maxSpans) {
+            this.maxSpans = maxSpans;
+        }
+    }
+}
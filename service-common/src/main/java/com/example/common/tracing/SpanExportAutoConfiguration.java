@@ -0,0 +1,61 @@
+package com.example.common.tracing;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.tracing.zipkin.ZipkinConnectionDetails;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.env.Environment;
+import zipkin2.codec.SpanBytesEncoder;
+
+import java.nio.file.Path;
+import zipkin2.reporter.Sender;
+
+/**
+ * Replaces Boot's span encoder, Zipkin sender and {@code AsyncReporter}, all of which back off
+ * when beans of their type exist, with the encoding chosen by {@code tracing.export.encoding},
+ * {@link HttpClientSpanSender} and {@link AsyncSpanExporter}. The endpoint is still
+ * {@code management.zipkin.tracing.endpoint}.
+ */
+@AutoConfiguration(beforeName = "org.springframework.boot.actuate.autoconfigure.tracing.zipkin.ZipkinAutoConfiguration")
+@ConditionalOnClass({Sender.class, ZipkinConnectionDetails.class, CloseableHttpClient.class})
+@ConditionalOnProperty(prefix = "tracing.export", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SpanExportProperties.class)
+public class SpanExportAutoConfiguration {
+    
+    @Bean
+    public SpanBytesEncoder spanBytesEncoder(SpanExportProperties properties) {
+        return properties.getEncoding() == SpanExportProperties.SpanEncoding.PROTO3
+            ? SpanBytesEncoder.PROTO3
+            : SpanBytesEncoder.JSON_V2;
+    }
+    
+    @Bean(destroyMethod = "close")
+    public HttpClientSpanSender httpClientSpanSender(ZipkinConnectionDetails connectionDetails,
+                                                     SpanBytesEncoder spanBytesEncoder,
+                                                     SpanExportProperties properties) {
+        return new HttpClientSpanSender(connectionDetails.getSpanEndpoint(), spanBytesEncoder.encoding(), properties);
+    }
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnProperty(prefix = "tracing.export.spool", name = "enabled", havingValue = "true")
+    public SpanSpool spanSpool(SpanExportProperties properties, Environment environment) {
+        SpanExportProperties.Spool spool = properties.getSpool();
+        Path directory = spool.getDirectory() != null
+            ? spool.getDirectory()
+            : Path.of(System.getProperty("java.io.tmpdir"), "span-spool",
+                environment.getProperty("spring.application.name", "application"));
+        return new SpanSpool(directory, (int) spool.getSegmentSize().toBytes(), spool.getMaxSize().toBytes());
+    }
+    
+    @Bean
+    public AsyncSpanExporter asyncSpanExporter(HttpClientSpanSender sender, SpanBytesEncoder spanBytesEncoder,
+                                               ObjectProvider<SpanSpool> spool, MeterRegistry meterRegistry,
+                                               SpanExportProperties properties) {
+        return new AsyncSpanExporter(sender, spanBytesEncoder, spool.getIfAvailable(), meterRegistry, properties);
+    }
+}
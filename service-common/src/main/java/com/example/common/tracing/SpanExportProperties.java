@@ -0,0 +1,195 @@
+package com.example.common.tracing;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "tracing.export")
+public class SpanExportProperties {
+    
+    private boolean enabled;
+    
+    /**
+     * Spans held for export; further spans are dropped until the exporter catches up.
+     */
+    private int bufferSize = 8192;
+    
+    private int batchSize = 500;
+    
+    private Duration flushInterval = Duration.ofSeconds(1);
+    
+    /**
+     * Wire format for span batches; proto3 is smaller and cheaper to encode than JSON.
+     */
+    private SpanEncoding encoding = SpanEncoding.JSON;
+    
+    private boolean compression = true;
+    
+    private DataSize messageMaxSize = DataSize.ofMegabytes(5);
+    
+    private int maxConnections = 2;
+    
+    private Duration connectTimeout = Duration.ofSeconds(1);
+    
+    private Duration readTimeout = Duration.ofSeconds(5);
+    
+    private final Spool spool = new Spool();
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getBufferSize() {
+        return bufferSize;
+    }
+    
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = bufferSize;
+    }
+    
+    public int getBatchSize() {
+        return batchSize;
+    }
+    
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+    
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+    
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+    
+    public SpanEncoding getEncoding() {
+        return encoding;
+    }
+    
+    public void setEncoding(SpanEncoding encoding) {
+        this.encoding = encoding;
+    }
+    
+    public boolean isCompression() {
+        return compression;
+    }
+    
+    public void setCompression(boolean compression) {
+        this.compression = compression;
+    }
+    
+    public DataSize getMessageMaxSize() {
+        return messageMaxSize;
+    }
+    
+    public void setMessageMaxSize(DataSize messageMaxSize) {
+        this.messageMaxSize = messageMaxSize;
+    }
+    
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+    
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+    
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+    
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+    
+    public Duration getReadTimeout() {
+        return readTimeout;
+    }
+    
+    public void setReadTimeout(Duration readTimeout) {
+        this.readTimeout = readTimeout;
+    }
+    
+    public Spool getSpool() {
+        return spool;
+    }
+    
+    /**
+     * Disk spool for batches the collector could not take.
+     */
+    public static class Spool {
+        
+        private boolean enabled;
+        
+        /**
+         * Defaults to {@code span-spool/<spring.application.name>} under {@code java.io.tmpdir}.
+         */
+        private Path directory;
+        
+        /**
+         * Must exceed {@code message-max-size}; larger messages cannot be spooled.
+         */
+        private DataSize segmentSize = DataSize.ofMegabytes(16);
+        
+        /**
+         * Disk space the spool may use; batches are dropped and counted beyond it.
+         */
+        private DataSize maxSize = DataSize.ofMegabytes(256);
+        
+        /**
+         * Wait between replay attempts while the collector is unavailable.
+         */
+        private Duration replayInterval = Duration.ofSeconds(2);
+        
+        public boolean isEnabled() {
+            return enabled;
+        }
+        
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+        
+        public Path getDirectory() {
+            return directory;
+        }
+        
+        public void setDirectory(Path directory) {
+            this.directory = directory;
+        }
+        
+        public DataSize getSegmentSize() {
+            return segmentSize;
+        }
+        
+        public void setSegmentSize(DataSize segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+        
+        public DataSize getMaxSize() {
+            return maxSize;
+        }
+        
+        public void setMaxSize(DataSize maxSize) {
+            this.maxSize = maxSize;
+        }
+        
+        public Duration getReplayInterval() {
+            return replayInterval;
+        }
+        
+        public void setReplayInterval(Duration replayInterval) {
+            this.replayInterval = replayInterval;
+        }
+    }
+    
+    public enum SpanEncoding {
+        JSON, PROTO3
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.common.tracing;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of encoded span messages kept in memory-mapped segment files, so messages the
+ * collector could not take wait on disk rather than on the heap. Each record is
+ * {@code [length][span count][message]}; the length is written last so a torn append is never
+ * read back, and a replayed record is marked by negating its length in place, which lets a
+ * restarted service resume where it stopped without a separate cursor file.
+ * <p>
+ * Segments are {@code segment-size} bytes and rotated when full; fully replayed segments are
+ * deleted. Appends are refused once {@code max-size} worth of segments exist, or once the spool is
+ * closed, after which nothing is read or marked either. Records reach the
+ * page cache immediately and survive a process crash, not a host crash.
+ */
+public class SpanSpool {
+    
+    private static final int HEADER_BYTES = 8;
+    
+    private static final String SEGMENT_PREFIX = "segment-";
+    
+    private final Path directory;
+    
+    private final int segmentSize;
+    
+    private final int maxSegments;
+    
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    
+    private long pendingRecords;
+    
+    private long pendingSpans;
+    
+    private boolean closed;
+    
+    public SpanSpool(Path directory, int segmentSize, long maxSize) {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.maxSegments = (int) Math.max(1, maxSize / segmentSize);
+        try {
+            Files.createDirectories(directory);
+            recover();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open span spool in " + directory, e);
+        }
+    }
+    
+    /**
+     * Appends a message; returns {@code false} if the spool is full or the message can never fit
+     * in a segment.
+     */
+    public synchronized boolean append(byte[] message, int length, int spanCount) throws IOException {
+        if (closed || HEADER_BYTES + length > segmentSize) {
+            return false;
+        }
+        Segment tail = segments.peekLast();
+        if (tail == null || tail.writePosition + HEADER_BYTES + length > segmentSize) {
+            if (segments.size() >= maxSegments) {
+                return false;
+            }
+            tail = openSegment(tail == null ? 0 : tail.sequence + 1);
+            segments.addLast(tail);
+        }
+        int position = tail.writePosition;
+        tail.buffer.putInt(position + 4, spanCount);
+        tail.buffer.put(position + HEADER_BYTES, message, 0, length);
+        tail.buffer.putInt(position, length);
+        tail.writePosition = position + HEADER_BYTES + length;
+        pendingRecords++;
+        pendingSpans += spanCount;
+        return true;
+    }
+    
+    /**
+     * Copies the oldest pending message into {@code target}, growing it if needed, without
+     * consuming it. Only one thread may replay.
+     */
+    public synchronized Record peek(byte[] target) throws IOException {
+        if (closed || pendingRecords == 0) {
+            return null;
+        }
+        Segment head = segments.peekFirst();
+        while (head.readPosition >= head.writePosition) {
+            segments.removeFirst();
+            head.delete();
+            head = segments.peekFirst();
+        }
+        int length = head.buffer.getInt(head.readPosition);
+        int spanCount = head.buffer.getInt(head.readPosition + 4);
+        byte[] message = target.length >= length ? target : new byte[length];
+        head.buffer.get(head.readPosition + HEADER_BYTES, message, 0, length);
+        return new Record(message, length, spanCount);
+    }
+    
+    /**
+     * Marks the record returned by the last {@link #peek} as replayed.
+     */
+    public synchronized void commit() throws IOException {
+        if (closed) {
+            return;
+        }
+        Segment head = segments.peekFirst();
+        int length = head.buffer.getInt(head.readPosition);
+        pendingRecords--;
+        pendingSpans -= head.buffer.getInt(head.readPosition + 4);
+        head.buffer.putInt(head.readPosition, -length);
+        head.readPosition += HEADER_BYTES + length;
+        if (head.readPosition >= head.writePosition && segments.size() > 1) {
+            segments.removeFirst();
+            head.delete();
+        }
+    }
+    
+    public synchronized boolean hasPending() {
+        return pendingRecords > 0;
+    }
+    
+    public synchronized long pendingSpans() {
+        return pendingSpans;
+    }
+    
+    public synchronized long sizeInBytes() {
+        return (long) segments.size() * segmentSize;
+    }
+    
+    public synchronized void close() throws IOException {
+        closed = true;
+        for (Segment segment : segments) {
+            segment.buffer.force();
+            segment.channel.close();
+        }
+        segments.clear();
+    }
+    
+    private void recover() throws IOException {
+        List<Path> files;
+        try (Stream<Path> listing = Files.list(directory)) {
+            files = listing
+                .filter(path -> path.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                .sorted()
+                .toList();
+        }
+        for (Path file : files) {
+            Segment segment = openSegment(Long.parseLong(file.getFileName().toString().substring(SEGMENT_PREFIX.length())));
+            segment.scan();
+            if (segment.readPosition >= segment.writePosition && file != files.get(files.size() - 1)) {
+                segment.delete();
+            } else {
+                segments.addLast(segment);
+            }
+        }
+    }
+    
+    private Segment openSegment(long sequence) throws IOException {
+        // Zero-padded so segment files sort in sequence order.
+        Path path = directory.resolve(String.format("%s%019d", SEGMENT_PREFIX, sequence));
+        FileChannel channel = FileChannel.open(path,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        return new Segment(sequence, path, channel, channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize));
+    }
+    
+    public record Record(byte[] message, int length, int spanCount) {
+    }
+    
+    private final class Segment {
+        
+        private final long sequence;
+        
+        private final Path path;
+        
+        private final FileChannel channel;
+        
+        private final MappedByteBuffer buffer;
+        
+        private int readPosition;
+        
+        private int writePosition;
+        
+        private Segment(long sequence, Path path, FileChannel channel, MappedByteBuffer buffer) {
+            this.sequence = sequence;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = buffer;
+        }
+        
+        /**
+         * Finds the first pending record and the end of written data; a zero length marks the end.
+         */
+        private void scan() {
+            int position = 0;
+            readPosition = -1;
+            while (position + HEADER_BYTES <= segmentSize) {
+                int length = buffer.getInt(position);
+                if (length == 0 || position + HEADER_BYTES + Math.abs(length) > segmentSize) {
+                    break;
+                }
+                if (length > 0) {
+                    if (readPosition < 0) {
+                        readPosition = position;
+                    }
+                    pendingRecords++;
+                    pendingSpans += buffer.getInt(position + 4);
+                }
+                position += HEADER_BYTES + Math.abs(length);
+            }
+            writePosition = position;
+            if (readPosition < 0) {
+                readPosition = position;
+            }
+        }
+        
+        private void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.example.common.tracing;
+
+import brave.TracingCustomizer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
+
+/**
+ * Only applies alongside {@link EndpointRateLimitingSampler}; with probability sampling at 1.0
+ * there are no unsampled traces to look at.
+ */
+@AutoConfiguration(after = SamplingAutoConfiguration.class,
+    afterName = "org.springframework.boot.actuate.autoconfigure.tracing.zipkin.ZipkinAutoConfiguration")
+@ConditionalOnClass(ZipkinSpanHandler.class)
+@ConditionalOnProperty(prefix = "tracing.sampling.tail", name = "enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnBean({EndpointRateLimitingSampler.class, Reporter.class})
+@EnableConfigurationProperties(SamplingProperties.class)
+public class TailSamplingAutoConfiguration {
+    
+    @Bean
+    public TailSamplingSpanHandler tailSamplingSpanHandler(Reporter<Span> spanReporter, MeterRegistry meterRegistry,
+                                                           SamplingProperties properties) {
+        return new TailSamplingSpanHandler(spanReporter, meterRegistry, properties.getTail());
+    }
+    
+    @Bean
+    public TracingCustomizer alwaysSampleLocalCustomizer() {
+        return builder -> builder.alwaysSampleLocal();
+    }
+}
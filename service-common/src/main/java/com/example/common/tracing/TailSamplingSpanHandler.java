@@ -0,0 +1,269 @@
+package com.example.common.tracing;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import zipkin2.Span;
+import zipkin2.reporter.Reporter;
+import zipkin2.reporter.brave.ZipkinSpanHandler;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps traces the head sampler dropped when they turn out to be interesting. Finished spans of
+ * unsampled traces are buffered per trace until no span of that trace has ended for
+ * {@code decision-wait}; the trace is then reported if any span recorded an error, if it spanned
+ * longer than {@code latency-threshold}, or if its trace ID falls within {@code keep-rate}.
+ * Spans ending after the decision follow it.
+ * <p>
+ * At most {@code max-spans} spans are buffered. When full, the oldest trace is decided early and
+ * counted as an eviction. Brave only passes unsampled spans to handlers when tracing is built
+ * with {@code alwaysSampleLocal()}; sampled spans are left to the regular Zipkin handler.
+ */
+public class TailSamplingSpanHandler extends SpanHandler implements AutoCloseable {
+    
+    private final SpanHandler reporter;
+    
+    private final long decisionWaitNanos;
+    
+    private final long latencyThresholdMicros;
+    
+    private final long keepBoundary;
+    
+    private final int maxSpans;
+    
+    private final LinkedHashMap<String, PendingTrace> pending = new LinkedHashMap<>();
+    
+    private final Cache<String, Boolean> decided;
+    
+    private final ScheduledExecutorService sweeper;
+    
+    private final Map<Reason, Counter> keptCounters = new EnumMap<>(Reason.class);
+    
+    private final Counter droppedCounter;
+    
+    private final Counter evictionCounter;
+    
+    private int bufferedSpans;
+    
+    public TailSamplingSpanHandler(Reporter<Span> spanReporter, MeterRegistry meterRegistry,
+                                   SamplingProperties.Tail properties) {
+        this.reporter = ZipkinSpanHandler.newBuilder(spanReporter).alwaysReportSpans(true).build();
+        this.decisionWaitNanos = properties.getDecisionWait().toNanos();
+        this.latencyThresholdMicros = TimeUnit.NANOSECONDS.toMicros(properties.getLatencyThreshold().toNanos());
+        this.keepBoundary = properties.getKeepRate() <= 0 ? -1 : (long) (Long.MAX_VALUE * properties.getKeepRate());
+        this.maxSpans = properties.getMaxSpans();
+        this.decided = Caffeine.newBuilder()
+            .maximumSize(properties.getMaxSpans())
+            .expireAfterWrite(properties.getDecisionWait().multipliedBy(10))
+            .build();
+        
+        for (Reason reason : Reason.values()) {
+            keptCounters.put(reason, Counter.builder("tracing.tail.decisions")
+                .description("Unsampled traces reported after tail sampling")
+                .tag("result", "kept")
+                .tag("reason", reason.name().toLowerCase())
+                .register(meterRegistry));
+        }
+        this.droppedCounter = Counter.builder("tracing.tail.decisions")
+            .description("Unsampled traces discarded after tail sampling")
+            .tag("result", "dropped")
+            .tag("reason", "none")
+            .register(meterRegistry);
+        this.evictionCounter = Counter.builder("tracing.tail.evictions")
+            .description("Traces decided before they went quiet because the buffer was full")
+            .register(meterRegistry);
+        Gauge.builder("tracing.tail.buffer.spans", this, TailSamplingSpanHandler::bufferedSpans)
+            .description("Spans waiting for a tail sampling decision")
+            .register(meterRegistry);
+        Gauge.builder("tracing.tail.buffer.traces", this, TailSamplingSpanHandler::bufferedTraces)
+            .description("Traces waiting for a tail sampling decision")
+            .register(meterRegistry);
+        
+        long sweepInterval = Math.max(TimeUnit.NANOSECONDS.toMillis(decisionWaitNanos) / 4, 50);
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "tail-sampling-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+        sweeper.scheduleWithFixedDelay(this::sweep, sweepInterval, sweepInterval, TimeUnit.MILLISECONDS);
+    }
+    
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause == Cause.ABANDONED || Boolean.TRUE.equals(context.sampled())) {
+            return true;
+        }
+        
+        String traceId = context.traceIdString();
+        Boolean decision;
+        List<PendingTrace> kept = new ArrayList<>(1);
+        synchronized (pending) {
+            decision = decided.getIfPresent(traceId);
+            if (decision == null) {
+                buffer(traceId, context, span, kept);
+            }
+        }
+        if (Boolean.TRUE.equals(decision)) {
+            reporter.end(context, span, cause);
+        }
+        kept.forEach(this::report);
+        return true;
+    }
+    
+    private void buffer(String traceId, TraceContext context, MutableSpan span, List<PendingTrace> kept) {
+        PendingTrace trace = pending.remove(traceId);
+        if (trace == null) {
+            trace = new PendingTrace(traceId, context.traceId());
+        }
+        // Re-inserted on every span so the map stays ordered by last activity, oldest first.
+        pending.put(traceId, trace);
+        trace.add(context, new MutableSpan(span));
+        bufferedSpans++;
+        
+        Iterator<PendingTrace> oldest = pending.values().iterator();
+        while (bufferedSpans > maxSpans && oldest.hasNext()) {
+            PendingTrace victim = oldest.next();
+            oldest.remove();
+            bufferedSpans -= victim.spans.size();
+            evictionCounter.increment();
+            if (decide(victim)) {
+                kept.add(victim);
+            }
+        }
+    }
+    
+    @Override
+    public void close() {
+        sweeper.shutdownNow();
+        List<PendingTrace> kept = new ArrayList<>();
+        synchronized (pending) {
+            for (PendingTrace trace : pending.values()) {
+                if (decide(trace)) {
+                    kept.add(trace);
+                }
+            }
+            pending.clear();
+            bufferedSpans = 0;
+        }
+        kept.forEach(this::report);
+    }
+    
+    private void sweep() {
+        long now = System.nanoTime();
+        List<PendingTrace> kept = new ArrayList<>();
+        synchronized (pending) {
+            Iterator<PendingTrace> oldest = pending.values().iterator();
+            while (oldest.hasNext()) {
+                PendingTrace trace = oldest.next();
+                if (now - trace.lastActivity < decisionWaitNanos) {
+                    break;
+                }
+                oldest.remove();
+                bufferedSpans -= trace.spans.size();
+                if (decide(trace)) {
+                    kept.add(trace);
+                }
+            }
+        }
+        kept.forEach(this::report);
+    }
+    
+    /**
+     * Records the decision so later spans of the trace follow it; called with the buffer locked.
+     */
+    private boolean decide(PendingTrace trace) {
+        Reason reason = trace.keepReason();
+        decided.put(trace.traceId, reason != null);
+        if (reason == null) {
+            droppedCounter.increment();
+            return false;
+        }
+        keptCounters.get(reason).increment();
+        return true;
+    }
+    
+    private void report(PendingTrace trace) {
+        for (int i = 0; i < trace.spans.size(); i++) {
+            reporter.end(trace.contexts.get(i), trace.spans.get(i), Cause.FINISHED);
+        }
+    }
+    
+    private double bufferedSpans() {
+        synchronized (pending) {
+            return bufferedSpans;
+        }
+    }
+    
+    private double bufferedTraces() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+    
+    private enum Reason {
+        ERROR, LATENCY, RANDOM
+    }
+    
+    private final class PendingTrace {
+        
+        private final String traceId;
+        
+        private final long traceIdLow;
+        
+        private final List<TraceContext> contexts = new ArrayList<>();
+        
+        private final List<MutableSpan> spans = new ArrayList<>();
+        
+        private boolean error;
+        
+        private long earliestStart = Long.MAX_VALUE;
+        
+        private long latestFinish;
+        
+        private long lastActivity;
+        
+        private PendingTrace(String traceId, long traceIdLow) {
+            this.traceId = traceId;
+            this.traceIdLow = traceIdLow;
+        }
+        
+        private void add(TraceContext context, MutableSpan span) {
+            contexts.add(context);
+            spans.add(span);
+            error |= span.error() != null || span.tag("error") != null;
+            if (span.startTimestamp() != 0) {
+                earliestStart = Math.min(earliestStart, span.startTimestamp());
+            }
+            latestFinish = Math.max(latestFinish, span.finishTimestamp());
+            lastActivity = System.nanoTime();
+        }
+        
+        private Reason keepReason() {
+            if (error) {
+                return Reason.ERROR;
+            }
+            if (latestFinish - earliestStart > latencyThresholdMicros) {
+                return Reason.LATENCY;
+            }
+            // Same trace ID, same answer in every service, so randomly kept traces stay whole.
+            if ((traceIdLow & Long.MAX_VALUE) <= keepBoundary) {
+                return Reason.RANDOM;
+            }
+            return null;
+        }
+    }
+}
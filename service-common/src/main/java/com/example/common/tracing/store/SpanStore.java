@@ -0,0 +1,368 @@
+package com.example.common.tracing.store;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Fixed-size store of the most recent spans, laid out as parallel primitive arrays so memory is
+ * allocated once, whatever the traffic: 74 bytes per span plus two to four 16-byte index entries,
+ * 106 to 138 bytes in all.
+ * Each span gets a sequence number; slot {@code sequence % capacity} holds it until overwritten.
+ * Spans of a trace are chained newest to oldest through the sequence of the previous one, and an
+ * open-addressing table maps each trace ID to its newest span. When that span is overwritten its
+ * entry is removed by backward-shift deletion, so the table holds at most {@code capacity} entries
+ * in at least twice as many slots and every probe ends at an empty slot. Service and span names
+ * are interned into a bounded table.
+ */
+public class SpanStore {
+    
+    public static final String OTHER_NAME = "(other)";
+    
+    private static final long NONE = -1;
+    
+    private final int capacity;
+    
+    private final long[] sequences;
+    
+    private final long[] traceIdHigh;
+    
+    private final long[] traceIdLow;
+    
+    private final long[] spanIds;
+    
+    private final long[] parentIds;
+    
+    private final long[] previousInTrace;
+    
+    private final long[] startMicros;
+    
+    private final long[] durationMicros;
+    
+    private final int[] serviceIds;
+    
+    private final int[] nameIds;
+    
+    private final byte[] kinds;
+    
+    private final boolean[] errors;
+    
+    private final long[] indexKeys;
+    
+    private final long[] indexHeads;
+    
+    private final int indexSize;
+    
+    private final int indexMask;
+    
+    private final Map<String, Integer> nameLookup = new HashMap<>();
+    
+    private final List<String> names = new ArrayList<>();
+    
+    private final int maxNames;
+    
+    private long nextSequence;
+    
+    public SpanStore(int capacity, int maxNames) {
+        this.capacity = capacity;
+        this.maxNames = maxNames;
+        this.sequences = new long[capacity];
+        Arrays.fill(sequences, NONE);
+        this.traceIdHigh = new long[capacity];
+        this.traceIdLow = new long[capacity];
+        this.spanIds = new long[capacity];
+        this.parentIds = new long[capacity];
+        this.previousInTrace = new long[capacity];
+        this.startMicros = new long[capacity];
+        this.durationMicros = new long[capacity];
+        this.serviceIds = new int[capacity];
+        this.nameIds = new int[capacity];
+        this.kinds = new byte[capacity];
+        this.errors = new boolean[capacity];
+        
+        this.indexSize = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        this.indexKeys = new long[indexSize];
+        this.indexHeads = new long[indexSize];
+        Arrays.fill(indexHeads, NONE);
+        this.indexMask = indexSize - 1;
+        intern(OTHER_NAME);
+    }
+    
+    public synchronized void add(long traceHigh, long traceLow, long spanId, long parentId, String service,
+                                 String name, SpanKind kind, long start, long duration, boolean error) {
+        long sequence = nextSequence++;
+        int slot = (int) (sequence % capacity);
+        if (sequences[slot] != NONE) {
+            unlinkFromTrace(traceIdLow[slot], sequences[slot]);
+        }
+        sequences[slot] = sequence;
+        traceIdHigh[slot] = traceHigh;
+        traceIdLow[slot] = traceLow;
+        spanIds[slot] = spanId;
+        parentIds[slot] = parentId;
+        startMicros[slot] = start;
+        durationMicros[slot] = duration;
+        serviceIds[slot] = intern(service);
+        nameIds[slot] = intern(name);
+        kinds[slot] = (byte) kind.ordinal();
+        errors[slot] = error;
+        previousInTrace[slot] = linkToTrace(traceLow, sequence);
+    }
+    
+    /**
+     * Spans of one trace, oldest first, or an empty list if none are left.
+     */
+    public synchronized List<StoredSpan> trace(long traceHigh, long traceLow) {
+        List<StoredSpan> spans = new ArrayList<>();
+        int entry = findEntry(traceLow);
+        long sequence = entry < 0 ? NONE : indexHeads[entry];
+        while (isLive(sequence)) {
+            int slot = (int) (sequence % capacity);
+            if (traceIdHigh[slot] == traceHigh) {
+                spans.add(toStoredSpan(slot));
+            }
+            sequence = previousInTrace[slot];
+        }
+        spans.sort(Comparator.comparingLong(StoredSpan::startMicros));
+        return spans;
+    }
+    
+    /**
+     * Traces in the store with the longest span from first start to last end.
+     */
+    public List<TraceSummary> slowestTraces(int limit) {
+        Map<TraceKey, TraceAccumulator> traces = new HashMap<>();
+        synchronized (this) {
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!isLive(sequences[slot])) {
+                    continue;
+                }
+                traces.computeIfAbsent(new TraceKey(traceIdHigh[slot], traceIdLow[slot]), key -> new TraceAccumulator())
+                    .add(slot);
+            }
+        }
+        return traces.entrySet().stream()
+            .map(entry -> entry.getValue().summary(entry.getKey()))
+            .sorted(Comparator.comparingLong(TraceSummary::durationMicros).reversed())
+            .limit(limit)
+            .toList();
+    }
+    
+    /**
+     * Duration percentiles of the stored spans, per service and span name, slowest p99 first.
+     */
+    public List<LatencySummary> latencyByName() {
+        Map<Long, long[]> durations = new HashMap<>();
+        Map<Long, Integer> counts = new HashMap<>();
+        List<String> nameTable;
+        synchronized (this) {
+            for (int slot = 0; slot < capacity; slot++) {
+                if (!isLive(sequences[slot])) {
+                    continue;
+                }
+                long key = ((long) serviceIds[slot] << 32) | nameIds[slot];
+                int count = counts.merge(key, 1, Integer::sum);
+                long[] values = durations.computeIfAbsent(key, k -> new long[16]);
+                if (count > values.length) {
+                    values = Arrays.copyOf(values, values.length * 2);
+                    durations.put(key, values);
+                }
+                values[count - 1] = durationMicros[slot];
+            }
+            nameTable = List.copyOf(names);
+        }
+        List<LatencySummary> summaries = new ArrayList<>(durations.size());
+        durations.forEach((key, values) -> {
+            int count = counts.get(key);
+            Arrays.sort(values, 0, count);
+            summaries.add(new LatencySummary(nameTable.get((int) (key >>> 32)), nameTable.get(key.intValue()), count,
+                percentile(values, count, 0.50), percentile(values, count, 0.95),
+                percentile(values, count, 0.99), values[count - 1]));
+        });
+        summaries.sort(Comparator.comparingLong(LatencySummary::p99Micros).reversed());
+        return summaries;
+    }
+    
+    public synchronized long size() {
+        return Math.min(nextSequence, capacity);
+    }
+    
+    /**
+     * Occupied index entries, one per trace with a span still in the store.
+     */
+    synchronized int indexEntries() {
+        int entries = 0;
+        for (long head : indexHeads) {
+            if (head != NONE) {
+                entries++;
+            }
+        }
+        return entries;
+    }
+    
+    int indexSize() {
+        return indexSize;
+    }
+    
+    private boolean isLive(long sequence) {
+        return sequence >= 0 && sequence >= nextSequence - capacity;
+    }
+    
+    /**
+     * Points the trace's index entry at {@code sequence} and returns the span it pointed at before.
+     */
+    private long linkToTrace(long traceLow, long sequence) {
+        int position = (int) mix(traceLow) & indexMask;
+        for (int probe = 0; probe < indexSize; probe++) {
+            if (indexHeads[position] == NONE) {
+                indexKeys[position] = traceLow;
+                indexHeads[position] = sequence;
+                return NONE;
+            }
+            if (indexKeys[position] == traceLow) {
+                long previous = indexHeads[position];
+                indexHeads[position] = sequence;
+                return previous;
+            }
+            position = (position + 1) & indexMask;
+        }
+        // Not reached while entries are removed with their spans; the span is kept but not indexed.
+        return NONE;
+    }
+    
+    /**
+     * Removes the trace's index entry if {@code sequence}, about to be overwritten, is its newest
+     * span; the older spans of the trace are gone already.
+     */
+    private void unlinkFromTrace(long traceLow, long sequence) {
+        int entry = findEntry(traceLow);
+        if (entry < 0 || indexHeads[entry] != sequence) {
+            return;
+        }
+        int hole = entry;
+        int position = entry;
+        for (int probe = 1; probe < indexSize; probe++) {
+            position = (position + 1) & indexMask;
+            if (indexHeads[position] == NONE) {
+                break;
+            }
+            // Shift back an entry whose home slot does not lie between the hole and its position.
+            int home = (int) mix(indexKeys[position]) & indexMask;
+            if (((position - home) & indexMask) >= ((position - hole) & indexMask)) {
+                indexKeys[hole] = indexKeys[position];
+                indexHeads[hole] = indexHeads[position];
+                hole = position;
+            }
+        }
+        indexHeads[hole] = NONE;
+    }
+    
+    private int findEntry(long traceLow) {
+        int position = (int) mix(traceLow) & indexMask;
+        for (int probe = 0; probe < indexSize && indexHeads[position] != NONE; probe++) {
+            if (indexKeys[position] == traceLow) {
+                return position;
+            }
+            position = (position + 1) & indexMask;
+        }
+        return -1;
+    }
+    
+    private int intern(String name) {
+        String key = name == null ? "" : name;
+        Integer id = nameLookup.get(key);
+        if (id != null) {
+            return id;
+        }
+        if (names.size() >= maxNames) {
+            return 0;
+        }
+        names.add(key);
+        nameLookup.put(key, names.size() - 1);
+        return names.size() - 1;
+    }
+    
+    private StoredSpan toStoredSpan(int slot) {
+        return new StoredSpan(
+            traceIdString(traceIdHigh[slot], traceIdLow[slot]),
+            hex(spanIds[slot]),
+            parentIds[slot] == 0 ? null : hex(parentIds[slot]),
+            names.get(serviceIds[slot]),
+            names.get(nameIds[slot]),
+            SpanKind.values()[kinds[slot]],
+            startMicros[slot],
+            durationMicros[slot],
+            errors[slot]
+        );
+    }
+    
+    private static long percentile(long[] sorted, int count, double percentile) {
+        return sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+    }
+    
+    private static long mix(long value) {
+        long hash = value * 0x9E3779B97F4A7C15L;
+        return hash ^ (hash >>> 32);
+    }
+    
+    static String traceIdString(long high, long low) {
+        return high == 0 ? hex(low) : hex(high) + hex(low);
+    }
+    
+    private static String hex(long value) {
+        return String.format("%016x", value);
+    }
+    
+    public enum SpanKind {
+        NONE, CLIENT, SERVER, PRODUCER, CONSUMER
+    }
+    
+    public record StoredSpan(String traceId, String spanId, String parentId, String service, String name,
+                             SpanKind kind, long startMicros, long durationMicros, boolean error) {
+    }
+    
+    public record TraceSummary(String traceId, String rootService, String rootName, int spanCount,
+                               long durationMicros, boolean error) {
+    }
+    
+    public record LatencySummary(String service, String name, int count, long p50Micros, long p95Micros,
+                                 long p99Micros, long maxMicros) {
+    }
+    
+    private record TraceKey(long high, long low) {
+    }
+    
+    private final class TraceAccumulator {
+        
+        private int spanCount;
+        
+        private long firstStart = Long.MAX_VALUE;
+        
+        private long lastEnd;
+        
+        private boolean error;
+        
+        private int rootSlot = -1;
+        
+        private void add(int slot) {
+            spanCount++;
+            firstStart = Math.min(firstStart, startMicros[slot]);
+            lastEnd = Math.max(lastEnd, startMicros[slot] + durationMicros[slot]);
+            error |= errors[slot];
+            // Without the root span, e.g. when it ran in another service, the earliest span stands in.
+            if (rootSlot < 0 || parentIds[slot] == 0
+                || (parentIds[rootSlot] != 0 && startMicros[slot] < startMicros[rootSlot])) {
+                rootSlot = slot;
+            }
+        }
+        
+        private TraceSummary summary(TraceKey key) {
+            return new TraceSummary(traceIdString(key.high(), key.low()), names.get(serviceIds[rootSlot]),
+                names.get(nameIds[rootSlot]),
+                spanCount, lastEnd - firstStart, error);
+        }
+    }
+}
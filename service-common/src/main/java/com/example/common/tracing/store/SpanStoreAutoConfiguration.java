@@ -0,0 +1,31 @@
+package com.example.common.tracing.store;
+
+import brave.handler.SpanHandler;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+@AutoConfiguration(beforeName = "org.springframework.boot.actuate.autoconfigure.tracing.BraveAutoConfiguration")
+@ConditionalOnClass({SpanHandler.class, Endpoint.class})
+@ConditionalOnProperty(prefix = "tracing.store", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties(SpanStoreProperties.class)
+public class SpanStoreAutoConfiguration {
+    
+    @Bean
+    public SpanStore spanStore(SpanStoreProperties properties) {
+        return new SpanStore(properties.getCapacity(), properties.getMaxNames());
+    }
+    
+    @Bean
+    public StoringSpanHandler storingSpanHandler(SpanStore spanStore) {
+        return new StoringSpanHandler(spanStore);
+    }
+    
+    @Bean
+    public TracesEndpoint tracesEndpoint(SpanStore spanStore, SpanStoreProperties properties) {
+        return new TracesEndpoint(spanStore, properties.getDefaultLimit());
+    }
+}
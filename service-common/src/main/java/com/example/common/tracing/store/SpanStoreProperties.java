@@ -0,0 +1,57 @@
+package com.example.common.tracing.store;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties(prefix = "tracing.store")
+public class SpanStoreProperties {
+    
+    private boolean enabled;
+    
+    /**
+     * Most recent spans kept; memory is allocated up front at 106 to 138 bytes per span, about 116
+     * at the default capacity.
+     */
+    private int capacity = 100_000;
+    
+    /**
+     * Distinct service and span names kept; further names are stored as "(other)".
+     */
+    private int maxNames = 1_000;
+    
+    /**
+     * Traces listed by the endpoint when no limit is given.
+     */
+    private int defaultLimit = 20;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public int getCapacity() {
+        return capacity;
+    }
+    
+    public void setCapacity(int capacity) {
+        this.capacity = capacity;
+    }
+    
+    public int getMaxNames() {
+        return maxNames;
+    }
+    
+    public void setMaxNames(int maxNames) {
+        this.maxNames = maxNames;
+    }
+    
+    public int getDefaultLimit() {
+        return defaultLimit;
+    }
+    
+    public void setDefaultLimit(int defaultLimit) {
+        this.defaultLimit = defaultLimit;
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.common.tracing.store;
+
+import brave.handler.MutableSpan;
+import brave.handler.SpanHandler;
+import brave.propagation.TraceContext;
+
+/**
+ * Copies every span finished in this process into a {@link SpanStore}, whether or not it was
+ * sampled for export. Brave only hands unsampled spans to handlers when tracing is built with
+ * {@code alwaysSampleLocal()}, as tail sampling does; otherwise the store sees sampled spans only.
+ */
+public class StoringSpanHandler extends SpanHandler {
+    
+    private final SpanStore store;
+    
+    public StoringSpanHandler(SpanStore store) {
+        this.store = store;
+    }
+    
+    @Override
+    public boolean end(TraceContext context, MutableSpan span, Cause cause) {
+        if (cause != Cause.FINISHED || span.startTimestamp() == 0) {
+            return true;
+        }
+        store.add(
+            context.traceIdHigh(),
+            context.traceId(),
+            context.spanId(),
+            context.parentIdAsLong(),
+            span.localServiceName(),
+            span.name(),
+            span.kind() == null ? SpanStore.SpanKind.NONE : SpanStore.SpanKind.valueOf(span.kind().name()),
+            span.startTimestamp(),
+            Math.max(0, span.finishTimestamp() - span.startTimestamp()),
+            span.error() != null || span.tag("error") != null
+        );
+        return true;
+    }
+}
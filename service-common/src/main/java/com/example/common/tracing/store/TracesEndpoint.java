@@ -0,0 +1,53 @@
+package com.example.common.tracing.store;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+/**
+ * {@code /actuator/traces} lists the slowest traces still in the {@link SpanStore} and span
+ * latency percentiles per service and name; {@code /actuator/traces/{traceId}} returns one trace.
+ * Only spans recorded by this service are known, so a trace shows its local part.
+ */
+@Endpoint(id = "traces")
+public class TracesEndpoint {
+    
+    private final SpanStore store;
+    
+    private final int defaultLimit;
+    
+    public TracesEndpoint(SpanStore store, int defaultLimit) {
+        this.store = store;
+        this.defaultLimit = defaultLimit;
+    }
+    
+    @ReadOperation
+    public TracesReport traces(@Nullable Integer limit) {
+        return new TracesReport(
+            store.size(),
+            store.slowestTraces(limit != null ? limit : defaultLimit),
+            store.latencyByName()
+        );
+    }
+    
+    @ReadOperation
+    public List<SpanStore.StoredSpan> trace(@Selector String traceId) {
+        if (traceId.length() != 16 && traceId.length() != 32) {
+            return List.of();
+        }
+        try {
+            long high = traceId.length() == 32 ? Long.parseUnsignedLong(traceId.substring(0, 16), 16) : 0;
+            long low = Long.parseUnsignedLong(traceId.substring(traceId.length() - 16), 16);
+            return store.trace(high, low);
+        } catch (NumberFormatException e) {
+            return List.of();
+        }
+    }
+    
+    public record TracesReport(long spans, List<SpanStore.TraceSummary> slowest,
+                               List<SpanStore.LatencySummary> latency) {
+    }
+}
@@ -0,0 +1,112 @@
+package com.example.common.concurrent;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatIllegalArgumentException;
+
+class MpscRingBufferTest {
+    
+    @Test
+    void roundsCapacityUpToAPowerOfTwo() {
+        assertThat(new MpscRingBuffer<>(1).capacity()).isEqualTo(1);
+        assertThat(new MpscRingBuffer<>(8).capacity()).isEqualTo(8);
+        assertThat(new MpscRingBuffer<>(100).capacity()).isEqualTo(128);
+        assertThatIllegalArgumentException().isThrownBy(() -> new MpscRingBuffer<>(0));
+    }
+    
+    @Test
+    void refusesOffersWhenFull() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(buffer.offer(i)).isTrue();
+        }
+        assertThat(buffer.offer(4)).isFalse();
+        assertThat(buffer.size()).isEqualTo(4);
+    
+        List<Integer> drained = new ArrayList<>();
+        assertThat(buffer.drainTo(drained, 1)).isEqualTo(1);
+        assertThat(buffer.offer(4)).isTrue();
+        assertThat(buffer.drainTo(drained, 10)).isEqualTo(4);
+        assertThat(drained).containsExactly(0, 1, 2, 3, 4);
+        assertThat(buffer.size()).isZero();
+    }
+    
+    @Test
+    void drainsInOfferOrderAcrossManyWraps() {
+        MpscRingBuffer<Integer> buffer = new MpscRingBuffer<>(8);
+        List<Integer> drained = new ArrayList<>();
+        int next = 0;
+        for (int round = 0; round < 1_000; round++) {
+            int batch = 1 + round % 8;
+            for (int i = 0; i < batch; i++) {
+                assertThat(buffer.offer(next++)).isTrue();
+            }
+            buffer.drainTo(drained, 3);
+            buffer.drainTo(drained, Integer.MAX_VALUE);
+        }
+        assertThat(drained).hasSize(next);
+        for (int i = 0; i < next; i++) {
+            assertThat(drained.get(i)).isEqualTo(i);
+        }
+    }
+    
+    @Test
+    void deliversEveryOfferedElementOnceUnderContention() throws Exception {
+        int producers = 4;
+        int perProducer = 100_000;
+        MpscRingBuffer<long[]> buffer = new MpscRingBuffer<>(1024);
+        ExecutorService pool = Executors.newFixedThreadPool(producers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> running = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            long producer = p;
+            running.add(pool.submit(() -> {
+                start.await();
+                for (long sequence = 0; sequence < perProducer; sequence++) {
+                    while (!buffer.offer(new long[] {producer, sequence})) {
+                        Thread.onSpinWait();
+                    }
+                }
+                return null;
+            }));
+        }
+    
+        long[] nextExpected = new long[producers];
+        List<long[]> batch = new ArrayList<>();
+        long received = 0;
+        long outOfOrder = 0;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        start.countDown();
+        while (received < (long) producers * perProducer && System.nanoTime() < deadline) {
+            batch.clear();
+            buffer.drainTo(batch, 256);
+            for (long[] element : batch) {
+                int producer = (int) element[0];
+                // Elements of one producer arrive in the order it offered them
+                if (element[1] != nextExpected[producer]) {
+                    outOfOrder++;
+                }
+                nextExpected[producer] = element[1] + 1;
+            }
+            received += batch.size();
+        }
+        for (Future<?> producer : running) {
+            producer.get(1, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+    
+        assertThat(received).isEqualTo((long) producers * perProducer);
+        assertThat(outOfOrder).isZero();
+        assertThat(nextExpected).containsOnly(perProducer);
+        assertThat(buffer.size()).isZero();
+    }
+}
@@ -0,0 +1,177 @@
+package com.example.common.tracing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpanSpoolTest {
+    
+    // Header (8 bytes) plus a 20-byte message: two records fit in a segment
+    private static final int SEGMENT_SIZE = 64;
+    
+    @TempDir
+    Path directory;
+    
+    @Test
+    void replaysRecordsInAppendOrder() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        append(spool, "first", 1);
+        append(spool, "second", 2);
+        append(spool, "third", 3);
+        assertThat(spool.pendingSpans()).isEqualTo(6);
+    
+        assertThat(replay(spool)).isEqualTo("first");
+        assertThat(replay(spool)).isEqualTo("second");
+        assertThat(replay(spool)).isEqualTo("third");
+        assertThat(spool.hasPending()).isFalse();
+        assertThat(spool.pendingSpans()).isZero();
+        assertThat(spool.peek(new byte[0])).isNull();
+    }
+    
+    @Test
+    void rotatesSegmentsAndDeletesThemOnceReplayed() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        for (int i = 0; i < 6; i++) {
+            append(spool, message(i), 1);
+        }
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(spool.sizeInBytes()).isEqualTo(3 * SEGMENT_SIZE);
+    
+        assertThat(replay(spool)).isEqualTo(message(0));
+        assertThat(segmentFiles()).hasSize(3);
+        assertThat(replay(spool)).isEqualTo(message(1));
+        assertThat(segmentFiles()).hasSize(2);
+    
+        for (int i = 2; i < 6; i++) {
+            assertThat(replay(spool)).isEqualTo(message(i));
+        }
+        // The last segment stays as the tail for further appends
+        assertThat(segmentFiles()).hasSize(1);
+    }
+    
+    @Test
+    void refusesAppendsBeyondMaxSizeOrSegmentSize() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 2 * SEGMENT_SIZE);
+        for (int i = 0; i < 4; i++) {
+            assertThat(append(spool, message(i), 1)).isTrue();
+        }
+        assertThat(append(spool, message(4), 1)).isFalse();
+        assertThat(spool.append(new byte[SEGMENT_SIZE], SEGMENT_SIZE - 7, 1)).isFalse();
+    
+        replay(spool);
+        replay(spool);
+        assertThat(append(spool, message(4), 1)).isTrue();
+    }
+    
+    @Test
+    void marksReplayedRecordsByNegatingTheirLength() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        append(spool, message(0), 1);
+        append(spool, message(1), 1);
+        replay(spool);
+        spool.close();
+    
+        ByteBuffer segment = ByteBuffer.wrap(Files.readAllBytes(segmentFiles().get(0)));
+        assertThat(segment.getInt(0)).isEqualTo(-message(0).length());
+        assertThat(segment.getInt(8 + message(0).length())).isEqualTo(message(1).length());
+    }
+    
+    @Test
+    void resumesAfterRestartWhereReplayStopped() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        for (int i = 0; i < 5; i++) {
+            append(spool, message(i), i + 1);
+        }
+        replay(spool);
+        replay(spool);
+        replay(spool);
+        spool.close();
+    
+        SpanSpool restarted = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        assertThat(restarted.hasPending()).isTrue();
+        assertThat(restarted.pendingSpans()).isEqualTo(4 + 5);
+        assertThat(segmentFiles()).hasSize(2);
+    
+        append(restarted, message(5), 6);
+        assertThat(replay(restarted)).isEqualTo(message(3));
+        assertThat(replay(restarted)).isEqualTo(message(4));
+        assertThat(replay(restarted)).isEqualTo(message(5));
+        assertThat(restarted.hasPending()).isFalse();
+    }
+    
+    @Test
+    void recoversAnEmptySpoolAfterEverythingWasReplayed() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        append(spool, message(0), 1);
+        replay(spool);
+        spool.close();
+    
+        SpanSpool restarted = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        assertThat(restarted.hasPending()).isFalse();
+        assertThat(restarted.pendingSpans()).isZero();
+        append(restarted, message(1), 1);
+        assertThat(replay(restarted)).isEqualTo(message(1));
+    }
+    
+    @Test
+    void dropsATornAppendOnRecovery() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        append(spool, message(0), 1);
+        spool.close();
+        // A crash before the length was written leaves the span count and message but a zero length
+        Path segment = segmentFiles().get(0);
+        ByteBuffer contents = ByteBuffer.wrap(Files.readAllBytes(segment));
+        int torn = 8 + message(0).length();
+        contents.putInt(torn + 4, 7);
+        contents.put(torn + 8, message(1).getBytes(StandardCharsets.UTF_8));
+        Files.write(segment, contents.array());
+        
+        SpanSpool restarted = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        assertThat(restarted.pendingSpans()).isEqualTo(1);
+        append(restarted, message(2), 2);
+        assertThat(replay(restarted)).isEqualTo(message(0));
+        assertThat(replay(restarted)).isEqualTo(message(2));
+        assertThat(restarted.hasPending()).isFalse();
+    }
+    
+    @Test
+    void ignoresEverythingOnceClosed() throws IOException {
+        SpanSpool spool = new SpanSpool(directory, SEGMENT_SIZE, 1024);
+        append(spool, message(0), 1);
+        spool.close();
+    
+        assertThat(append(spool, message(1), 1)).isFalse();
+        assertThat(spool.peek(new byte[0])).isNull();
+    }
+    
+    private static String message(int index) {
+        return String.format("message-%012d", index);
+    }
+    
+    private static boolean append(SpanSpool spool, String message, int spanCount) throws IOException {
+        byte[] bytes = message.getBytes(StandardCharsets.UTF_8);
+        return spool.append(bytes, bytes.length, spanCount);
+    }
+    
+    private static String replay(SpanSpool spool) throws IOException {
+        SpanSpool.Record record = spool.peek(new byte[4]);
+        assertThat(record).isNotNull();
+        spool.commit();
+        return new String(record.message(), 0, record.length(), StandardCharsets.UTF_8);
+    }
+    
+    private List<Path> segmentFiles() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().toList();
+        }
+    }
+}
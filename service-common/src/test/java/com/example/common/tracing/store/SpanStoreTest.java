@@ -0,0 +1,102 @@
+package com.example.common.tracing.store;
+
+import com.example.common.tracing.store.SpanStore.SpanKind;
+import com.example.common.tracing.store.SpanStore.StoredSpan;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SpanStoreTest {
+    
+    @Test
+    void keepsOnlyTheNewestSpansOnceTheRingWraps() {
+        SpanStore store = new SpanStore(100, 16);
+        for (long trace = 1; trace <= 1_000; trace++) {
+            addTrace(store, trace, 4);
+        }
+    
+        assertThat(store.size()).isEqualTo(100);
+        assertThat(store.trace(0, 1)).isEmpty();
+        assertThat(store.trace(0, 975)).isEmpty();
+        assertThat(store.trace(0, 976)).hasSize(4);
+        assertThat(store.trace(0, 1_000)).hasSize(4)
+            .extracting(StoredSpan::startMicros)
+            .containsExactly(0L, 1L, 2L, 3L);
+    }
+    
+    @Test
+    void returnsTheSurvivingSpansOfAPartlyOverwrittenTrace() {
+        SpanStore store = new SpanStore(10, 16);
+        for (int span = 0; span < 5; span++) {
+            add(store, 0, 7, span);
+            add(store, 0, 8, span);
+        }
+        add(store, 0, 9, 0);
+        add(store, 0, 9, 1);
+    
+        assertThat(store.trace(0, 7)).extracting(StoredSpan::startMicros).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(store.trace(0, 8)).extracting(StoredSpan::startMicros).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(store.trace(0, 9)).hasSize(2);
+    }
+    
+    @Test
+    void separatesTracesThatShareTheLowBits() {
+        SpanStore store = new SpanStore(10, 16);
+        add(store, 1, 42, 0);
+        add(store, 2, 42, 1);
+    
+        assertThat(store.trace(1, 42)).singleElement()
+            .satisfies(span -> assertThat(span.traceId()).isEqualTo(SpanStore.traceIdString(1, 42)));
+        assertThat(store.trace(2, 42)).singleElement()
+            .satisfies(span -> assertThat(span.startMicros()).isEqualTo(1));
+    }
+    
+    @Test
+    void indexStaysBoundedAcrossManyWraps() {
+        int capacity = 1_000;
+        SpanStore store = new SpanStore(capacity, 16);
+        SplittableRandom random = new SplittableRandom(1);
+        long[] recent = new long[capacity / 2];
+        for (int i = 0; i < 2_000_000; i++) {
+            long traceLow = random.nextLong();
+            addTrace(store, traceLow, 1 + (i & 1));
+            recent[i % recent.length] = traceLow;
+        }
+    
+        assertThat(store.indexEntries()).isLessThanOrEqualTo(capacity);
+        assertThat(store.indexSize()).isGreaterThanOrEqualTo(2 * capacity);
+        // The table is at most half full, so lookups of absent traces end at an empty slot
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(store.trace(0, random.nextLong())).isEmpty();
+        }
+        for (long traceLow : recent) {
+            assertThat(store.trace(0, traceLow)).isNotEmpty();
+        }
+    }
+    
+    @Test
+    void removesIndexEntriesWithTheirLastSpan() {
+        SpanStore store = new SpanStore(50, 16);
+        for (long trace = 1; trace <= 500; trace++) {
+            addTrace(store, trace, 1);
+        }
+        assertThat(store.indexEntries()).isEqualTo(50);
+    
+        addTrace(store, 1_000, 50);
+        assertThat(store.indexEntries()).isEqualTo(1);
+        assertThat(store.trace(0, 1_000)).hasSize(50);
+    }
+    
+    private static void addTrace(SpanStore store, long traceLow, int spans) {
+        for (int span = 0; span < spans; span++) {
+            add(store, 0, traceLow, span);
+        }
+    }
+    
+    private static void add(SpanStore store, long traceHigh, long traceLow, long start) {
+        store.add(traceHigh, traceLow, start + 1, start == 0 ? 0 : start, "service", "span-" + start,
+            SpanKind.SERVER, start, 10, false);
+    }
+}
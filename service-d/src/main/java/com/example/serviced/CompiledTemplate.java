@@ -0,0 +1,91 @@
+package com.example.serviced;
+
+import com.example.notification.NotificationRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * A notification template parsed once into literal and {@code {{placeholder}}} segments, so
+ * rendering is a single append pass with no scanning or intermediate strings.
+ */
+public final class CompiledTemplate {
+    
+    private static final String OPEN = "{{";
+    
+    private static final String CLOSE = "}}";
+    
+    private final Segment[] segments;
+    
+    private final int literalLength;
+    
+    private CompiledTemplate(Segment[] segments, int literalLength) {
+        this.segments = segments;
+        this.literalLength = literalLength;
+    }
+    
+    public static CompiledTemplate compile(String source) {
+        List<Segment> segments = new ArrayList<>();
+        int literalLength = 0;
+        int position = 0;
+        while (position < source.length()) {
+            int open = source.indexOf(OPEN, position);
+            int close = open < 0 ? -1 : source.indexOf(CLOSE, open + OPEN.length());
+            if (close < 0) {
+                break;
+            }
+            if (open > position) {
+                segments.add(literal(source.substring(position, open)));
+                literalLength += open - position;
+            }
+            segments.add(placeholder(source.substring(open + OPEN.length(), close).trim()));
+            position = close + CLOSE.length();
+        }
+        if (position < source.length()) {
+            segments.add(literal(source.substring(position)));
+            literalLength += source.length() - position;
+        }
+        return new CompiledTemplate(segments.toArray(new Segment[0]), literalLength);
+    }
+    
+    public void renderTo(NotificationRequest request, StringBuilder out) {
+        out.ensureCapacity(out.length() + literalLength + 32);
+        for (Segment segment : segments) {
+            segment.appendTo(request, out);
+        }
+    }
+    
+    private static Segment literal(String text) {
+        return (request, out) -> out.append(text);
+    }
+    
+    private static Segment placeholder(String name) {
+        Function<NotificationRequest, String> value = switch (name) {
+            case "orderId" -> NotificationRequest::getOrderId;
+            case "status" -> request -> name(request.getStatus());
+            case "type" -> request -> name(request.getType());
+            case "channel" -> request -> name(request.getChannel());
+            default -> null;
+        };
+        if (value == null) {
+            return literal(OPEN + name + CLOSE);
+        }
+        return (request, out) -> {
+            String resolved = value.apply(request);
+            if (resolved != null) {
+                out.append(resolved);
+            }
+        };
+    }
+    
+    private static String name(Enum<?> value) {
+        return value == null ? null : value.name();
+    }
+    
+    @FunctionalInterface
+    private interface Segment {
+        
+        void appendTo(NotificationRequest request, StringBuilder out);
+    }
+}
@@ -0,0 +1,13 @@
+package com.example.serviced;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Looks up the user data a notification is enriched with. Implementations may share one
+ * in-flight lookup between concurrent callers asking for the same key.
+ */
+@FunctionalInterface
+public interface EnrichmentCache {
+    
+    CompletableFuture<UserData> get(String key);
+}
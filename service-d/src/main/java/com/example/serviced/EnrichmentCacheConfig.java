@@ -0,0 +1,85 @@
+package com.example.serviced;
+
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineStatsCounter;
+import io.micrometer.context.ContextExecutorService;
+import io.micrometer.context.ContextSnapshotFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+@Configuration
+@EnableConfigurationProperties(EnrichmentCacheProperties.class)
+public class EnrichmentCacheConfig {
+    
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(EnrichmentCache.class)
+    @ConditionalOnProperty(name = "notification.enrichment.cache.enabled", havingValue = "true", matchIfMissing = true)
+    public EnrichmentCache cachingEnrichmentCache(UserDataClient userDataClient, EnrichmentCacheProperties properties,
+                                                  MeterRegistry meterRegistry) {
+        // Loads run with the observation of the notification that missed, so the fetch stays in its trace
+        ContextSnapshotFactory snapshots = ContextSnapshotFactory.builder().build();
+        ExecutorService loaders = ContextExecutorService.wrap(
+            Executors.newFixedThreadPool(properties.getLoaderThreads(), loaderThreadFactory()),
+            () -> snapshots.captureAll());
+        CaffeineStatsCounter statsCounter = new CaffeineStatsCounter(meterRegistry, properties.getName());
+        AsyncLoadingCache<String, UserData> cache = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .executor(loaders)
+            .recordStats(() -> statsCounter)
+            .buildAsync(userDataClient::fetch);
+        statsCounter.registerSizeMetric(cache.synchronous());
+        return new CachingEnrichmentCache(cache, loaders);
+    }
+    
+    @Bean
+    @ConditionalOnMissingBean(EnrichmentCache.class)
+    @ConditionalOnProperty(name = "notification.enrichment.cache.enabled", havingValue = "false")
+    public EnrichmentCache directEnrichmentCache(UserDataClient userDataClient) {
+        return key -> CompletableFuture.completedFuture(userDataClient.fetch(key));
+    }
+    
+    private static ThreadFactory loaderThreadFactory() {
+        AtomicInteger counter = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "user-data-loader-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    /**
+     * Shuts the loader pool down with the application context.
+     */
+    static final class CachingEnrichmentCache implements EnrichmentCache {
+        
+        private final AsyncLoadingCache<String, UserData> cache;
+        
+        private final ExecutorService loaders;
+        
+        CachingEnrichmentCache(AsyncLoadingCache<String, UserData> cache, ExecutorService loaders) {
+            this.cache = cache;
+            this.loaders = loaders;
+        }
+        
+        @Override
+        public CompletableFuture<UserData> get(String key) {
+            return cache.get(key);
+        }
+        
+        public void close() {
+            loaders.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.example.serviced;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties(prefix = "notification.enrichment.cache")
+public class EnrichmentCacheProperties {
+    
+    private boolean enabled = true;
+    
+    private String name = "user-data";
+    
+    private long maximumSize = 10_000;
+    
+    private Duration expireAfterWrite = Duration.ofMinutes(5);
+    
+    private int loaderThreads = 8;
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+    
+    public String getName() {
+        return name;
+    }
+    
+    public void setName(String name) {
+        this.name = name;
+    }
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+    
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+    
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+    
+    public int getLoaderThreads() {
+        return loaderThreads;
+    }
+    
+    public void setLoaderThreads(int loaderThreads) {
+        this.loaderThreads = loaderThreads;
+    }
+}
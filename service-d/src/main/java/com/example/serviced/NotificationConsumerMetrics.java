@@ -0,0 +1,179 @@
+package com.example.serviced;
+
+import com.example.notification.NotificationRouting;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.AmqpException;
+import org.springframework.amqp.core.AmqpAdmin;
+import org.springframework.amqp.core.QueueInformation;
+import org.springframework.amqp.rabbit.listener.MessageListenerContainer;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
+import org.springframework.amqp.rabbit.listener.SimpleMessageListenerContainer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Consumer metrics per notification queue, tagged with {@code queue}. Queue depth is read from
+ * the broker every {@code depth-poll-interval} on a background thread, so scraping metrics
+ * never waits on the broker; it reports NaN until the first successful read.
+ */
+@Component
+public class NotificationConsumerMetrics implements MeterBinder {
+    
+    public static final String EMAIL_LISTENER_ID = "notification-listener-email";
+    
+    public static final String SMS_LISTENER_ID = "notification-listener-sms";
+    
+    public static final String PUSH_LISTENER_ID = "notification-listener-push";
+    
+    public static final String DEFAULT_LISTENER_ID = "notification-listener";
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationConsumerMetrics.class);
+    
+    private final Map<String, QueueStats> queues = new LinkedHashMap<>();
+    
+    private final RabbitListenerEndpointRegistry listenerRegistry;
+    
+    private final AmqpAdmin amqpAdmin;
+    
+    private final int prefetch;
+    
+    private final ScheduledExecutorService depthPoller;
+    
+    public NotificationConsumerMetrics(RabbitListenerEndpointRegistry listenerRegistry, AmqpAdmin amqpAdmin,
+                                       @Value("${spring.rabbitmq.listener.simple.prefetch:250}") int prefetch,
+                                       @Value("${notification.consumer.depth-poll-interval:5s}") Duration depthPollInterval) {
+        this.listenerRegistry = listenerRegistry;
+        this.amqpAdmin = amqpAdmin;
+        this.prefetch = prefetch;
+        queues.put(NotificationRouting.EMAIL_QUEUE, new QueueStats(NotificationRouting.EMAIL_QUEUE, EMAIL_LISTENER_ID));
+        queues.put(NotificationRouting.SMS_QUEUE, new QueueStats(NotificationRouting.SMS_QUEUE, SMS_LISTENER_ID));
+        queues.put(NotificationRouting.PUSH_QUEUE, new QueueStats(NotificationRouting.PUSH_QUEUE, PUSH_LISTENER_ID));
+        queues.put(NotificationRouting.DEFAULT_QUEUE,
+            new QueueStats(NotificationRouting.DEFAULT_QUEUE, DEFAULT_LISTENER_ID));
+        
+        this.depthPoller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-queue-depth");
+            thread.setDaemon(true);
+            return thread;
+        });
+        depthPoller.scheduleWithFixedDelay(this::pollDepths, 0, depthPollInterval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    public void messageStarted(String queue) {
+        stats(queue).inFlight.incrementAndGet();
+    }
+    
+    public void messageFinished(String queue, boolean processed) {
+        QueueStats stats = stats(queue);
+        stats.inFlight.decrementAndGet();
+        (processed ? stats.processed : stats.rejected).increment();
+    }
+    
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (QueueStats stats : queues.values()) {
+            Gauge.builder("notification.consumer.in-flight", stats.inFlight, AtomicInteger::get)
+                .tag("queue", stats.queue)
+                .description("Notifications received but not yet acknowledged")
+                .register(registry);
+            Gauge.builder("notification.consumer.active", stats, this::activeConsumers)
+                .tag("queue", stats.queue)
+                .description("Consumers currently attached to the notification queue")
+                .register(registry);
+            Gauge.builder("notification.consumer.utilization", stats, this::utilization)
+                .tag("queue", stats.queue)
+                .description("Share of the consumers' prefetch window held by unacknowledged notifications")
+                .register(registry);
+            FunctionCounter.builder("notification.consumer.messages", stats.processed, LongAdder::sum)
+                .tag("queue", stats.queue)
+                .tag("result", "processed")
+                .description("Notifications taken from the queue and acknowledged")
+                .register(registry);
+            FunctionCounter.builder("notification.consumer.messages", stats.rejected, LongAdder::sum)
+                .tag("queue", stats.queue)
+                .tag("result", "rejected")
+                .description("Notifications taken from the queue and rejected")
+                .register(registry);
+            Gauge.builder("notification.queue.depth", stats, QueueStats::depth)
+                .tag("queue", stats.queue)
+                .description("Messages ready on the broker, as of the last poll")
+                .register(registry);
+        }
+    }
+    
+    @PreDestroy
+    public void close() {
+        depthPoller.shutdownNow();
+    }
+    
+    private QueueStats stats(String queue) {
+        QueueStats stats = queues.get(queue);
+        return stats != null ? stats : queues.get(NotificationRouting.DEFAULT_QUEUE);
+    }
+    
+    private void pollDepths() {
+        for (QueueStats stats : queues.values()) {
+            try {
+                QueueInformation information = amqpAdmin.getQueueInfo(stats.queue);
+                stats.depth.set(information == null ? -1 : information.getMessageCount());
+            } catch (AmqpException e) {
+                logger.debug("Service D: Cannot read depth of {}: {}", stats.queue, e.getMessage());
+                stats.depth.set(-1);
+            }
+        }
+    }
+    
+    private double activeConsumers(QueueStats stats) {
+        MessageListenerContainer container = listenerRegistry.getListenerContainer(stats.listenerId);
+        if (container instanceof SimpleMessageListenerContainer simpleContainer) {
+            return simpleContainer.getActiveConsumerCount();
+        }
+        return 0;
+    }
+    
+    private double utilization(QueueStats stats) {
+        double active = activeConsumers(stats);
+        return active == 0 ? 0 : Math.min(1.0, stats.inFlight.get() / (active * prefetch));
+    }
+    
+    private static final class QueueStats {
+        
+        private final String queue;
+        
+        private final String listenerId;
+        
+        private final AtomicInteger inFlight = new AtomicInteger();
+        
+        private final LongAdder processed = new LongAdder();
+        
+        private final LongAdder rejected = new LongAdder();
+        
+        private final AtomicLong depth = new AtomicLong(-1);
+        
+        private QueueStats(String queue, String listenerId) {
+            this.queue = queue;
+            this.listenerId = listenerId;
+        }
+        
+        private double depth() {
+            long value = depth.get();
+            return value < 0 ? Double.NaN : value;
+        }
+    }
+}
@@ -0,0 +1,267 @@
+package com.example.serviced;
+
+import com.example.notification.NotificationRequest;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Link;
+import io.micrometer.tracing.Span;
+import io.micrometer.tracing.Tracer;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Runs notifications through a fixed sequence of stages, each with its own worker pool and a
+ * bounded input queue. Service D runs one pipeline per delivery channel. A full queue blocks the
+ * stage in front of it, so a slow stage pushes back all the way to {@link #submit} and from there
+ * to the AMQP consumer.
+ * <p>
+ * A {@link BatchStage} collects notifications for up to its window and runs one call for the
+ * batch. The call gets its own span, linked to every notification's stage span, and each stage
+ * span is tagged with the batch span it was delivered in.
+ */
+public class NotificationPipeline {
+    
+    private static final Logger logger = LoggerFactory.getLogger(NotificationPipeline.class);
+    
+    private final String channel;
+    
+    private final ObservationRegistry observationRegistry;
+    
+    private final Tracer tracer;
+    
+    private final List<Stage> stages;
+    
+    private final List<BlockingQueue<Task>> queues = new ArrayList<>();
+    
+    private final List<ExecutorService> workerPools = new ArrayList<>();
+    
+    public NotificationPipeline(String channel, List<Stage> stages, ObservationRegistry observationRegistry,
+                                Tracer tracer, MeterRegistry meterRegistry) {
+        this.channel = channel;
+        this.stages = List.copyOf(stages);
+        this.observationRegistry = observationRegistry;
+        this.tracer = tracer;
+        for (Stage stage : this.stages) {
+            BlockingQueue<Task> queue = new ArrayBlockingQueue<>(stage.queueCapacity());
+            queues.add(queue);
+            Gauge.builder("notification.pipeline.queue.depth", queue, BlockingQueue::size)
+                .tag(NotificationTags.CHANNEL, channel)
+                .tag("stage", stage.name())
+                .description("Notifications waiting for a stage worker")
+                .register(meterRegistry);
+        }
+    }
+    
+    public void start() {
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            ExecutorService pool = Executors.newFixedThreadPool(stage.workers(), threadFactory(stage.name()));
+            for (int worker = 0; worker < stage.workers(); worker++) {
+                int index = i;
+                pool.execute(stage instanceof BatchStage ? () -> runBatchWorker(index) : () -> runWorker(index));
+            }
+            workerPools.add(pool);
+        }
+    }
+    
+    public void stop() {
+        workerPools.forEach(ExecutorService::shutdownNow);
+        for (ExecutorService pool : workerPools) {
+            try {
+                pool.awaitTermination(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Hands a notification to the first stage, blocking while that stage's queue is full.
+     * Stage observations are created as children of {@code parent}.
+     */
+    public CompletableFuture<Void> submit(NotificationRequest request, Observation parent) throws InterruptedException {
+        Task task = new Task(request, parent, new CompletableFuture<>());
+        queues.get(0).put(task);
+        return task.completion();
+    }
+    
+    private void runWorker(int index) {
+        MessageStage stage = (MessageStage) stages.get(index);
+        BlockingQueue<Task> input = queues.get(index);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                Task task = input.take();
+                if (runStage(stage, task)) {
+                    forward(index, task);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    /**
+     * Runs one stage call. Any failure, an {@link Error} included, fails the notification rather
+     * than the worker, so the notification is always settled and the worker keeps taking tasks.
+     */
+    private boolean runStage(MessageStage stage, Task task) {
+        try {
+            if (stage.condition().test(task.request())) {
+                Observation.createNotStarted(stage.observationName(), observationRegistry)
+                    .parentObservation(task.parent())
+                    .observe(() -> stage.action().accept(task.request()));
+            }
+            return true;
+        } catch (Throwable e) {
+            fail(stage, task, e);
+            return false;
+        }
+    }
+    
+    private void runBatchWorker(int index) {
+        BatchStage stage = (BatchStage) stages.get(index);
+        BlockingQueue<Task> input = queues.get(index);
+        while (!Thread.currentThread().isInterrupted()) {
+            try {
+                List<Task> batch = collectBatch(stage, input);
+                if (runBatch(stage, batch)) {
+                    for (Task task : batch) {
+                        forward(index, task);
+                    }
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+    
+    private List<Task> collectBatch(BatchStage stage, BlockingQueue<Task> input) throws InterruptedException {
+        List<Task> batch = new ArrayList<>(stage.maxBatchSize());
+        batch.add(input.take());
+        long deadline = System.nanoTime() + stage.window().toNanos();
+        while (batch.size() < stage.maxBatchSize()) {
+            long remaining = deadline - System.nanoTime();
+            Task next = remaining > 0 ? input.poll(remaining, TimeUnit.NANOSECONDS) : null;
+            if (next == null) {
+                break;
+            }
+            batch.add(next);
+        }
+        return batch;
+    }
+    
+    private boolean runBatch(BatchStage stage, List<Task> tasks) {
+        List<Observation> observations = new ArrayList<>(tasks.size());
+        List<NotificationRequest> requests = new ArrayList<>(tasks.size());
+        Span batchSpan = null;
+        try {
+            Span.Builder batchSpanBuilder = tracer.spanBuilder()
+                .name(stage.observationName() + "-batch")
+                .setNoParent()
+                .tag(NotificationTags.CHANNEL, channel)
+                .tag("batch.size", String.valueOf(tasks.size()));
+            for (Task task : tasks) {
+                Observation observation = Observation.createNotStarted(stage.observationName(), observationRegistry)
+                    .parentObservation(task.parent())
+                    .start();
+                observations.add(observation);
+                requests.add(task.request());
+                TracingObservationHandler.TracingContext tracingContext =
+                    observation.getContextView().get(TracingObservationHandler.TracingContext.class);
+                if (tracingContext != null && tracingContext.getSpan() != null) {
+                    batchSpanBuilder.addLink(new Link(tracingContext.getSpan()));
+                }
+            }
+            
+            batchSpan = batchSpanBuilder.start();
+            for (Observation observation : observations) {
+                observation.highCardinalityKeyValue("batch.trace.id", batchSpan.context().traceId());
+                observation.highCardinalityKeyValue("batch.span.id", batchSpan.context().spanId());
+            }
+            try (Tracer.SpanInScope ignored = tracer.withSpan(batchSpan)) {
+                stage.action().accept(requests);
+            }
+            observations.forEach(Observation::stop);
+            return true;
+        } catch (Throwable e) {
+            if (batchSpan != null) {
+                batchSpan.error(e);
+            }
+            for (Observation observation : observations) {
+                observation.error(e);
+                observation.stop();
+            }
+            for (Task task : tasks) {
+                fail(stage, task, e);
+            }
+            return false;
+        } finally {
+            if (batchSpan != null) {
+                batchSpan.end();
+            }
+        }
+    }
+    
+    private void forward(int index, Task task) throws InterruptedException {
+        if (index + 1 < queues.size()) {
+            queues.get(index + 1).put(task);
+        } else {
+            task.completion().complete(null);
+        }
+    }
+    
+    private void fail(Stage stage, Task task, Throwable e) {
+        logger.error("Service D: Stage {} failed for order {}: {}", stage.name(), task.request().getOrderId(), e.getMessage());
+        task.completion().completeExceptionally(e);
+    }
+    
+    private ThreadFactory threadFactory(String stageName) {
+        AtomicInteger counter = new AtomicInteger();
+        String prefix = "notify-" + channel.toLowerCase(Locale.ROOT) + "-" + stageName + "-";
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+    
+    public sealed interface Stage permits MessageStage, BatchStage {
+        
+        String name();
+        
+        int workers();
+        
+        int queueCapacity();
+    }
+    
+    public record MessageStage(String name, String observationName, int workers, int queueCapacity,
+                               Predicate<NotificationRequest> condition, Consumer<NotificationRequest> action) implements Stage {
+    }
+    
+    public record BatchStage(String name, String observationName, int workers, int queueCapacity,
+                             int maxBatchSize, Duration window,
+                             Consumer<List<NotificationRequest>> action) implements Stage {
+    }
+    
+    private record Task(NotificationRequest request, Observation parent, CompletableFuture<Void> completion) {
+    }
+}
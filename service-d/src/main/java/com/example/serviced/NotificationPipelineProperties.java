@@ -0,0 +1,68 @@
+package com.example.serviced;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notification.pipeline")
+public class NotificationPipelineProperties {
+    
+    private Map<String, StageSettings> stages = new LinkedHashMap<>();
+    
+    public Map<String, StageSettings> getStages() {
+        return stages;
+    }
+    
+    public void setStages(Map<String, StageSettings> stages) {
+        this.stages = stages;
+    }
+    
+    public StageSettings stage(String name) {
+        return stages.getOrDefault(name, new StageSettings());
+    }
+    
+    public static class StageSettings {
+        
+        private int workers = 2;
+        
+        private int queueCapacity = 100;
+        
+        private int batchSize = 1;
+        
+        private Duration batchWindow = Duration.ofMillis(20);
+        
+        public int getWorkers() {
+            return workers;
+        }
+        
+        public void setWorkers(int workers) {
+            this.workers = workers;
+        }
+        
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+        
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+        
+        public int getBatchSize() {
+            return batchSize;
+        }
+        
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+        
+        public Duration getBatchWindow() {
+            return batchWindow;
+        }
+        
+        public void setBatchWindow(Duration batchWindow) {
+            this.batchWindow = batchWindow;
+        }
+    }
+}
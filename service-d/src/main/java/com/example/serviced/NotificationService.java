@@ -1,54 +1,296 @@
 package com.example.serviced;
 
-import io.micrometer.observation.annotation.Observed;
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationRouting;
+import com.example.notification.NotificationStatus;
+import com.example.notification.NotificationType;
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ShutdownSignalException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.Tracer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
+import org.springframework.amqp.support.AmqpHeaders;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.rabbit.listener.RabbitListenerEndpointRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.messaging.handler.annotation.Header;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.RestTemplate;
 
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Consumes notifications and runs them through the channel pipelines. Deliveries are acked or,
+ * on failure, rejected to the dead-letter queue once their pipeline finishes, on the channel they
+ * arrived on. Before the listener containers stop (and close those channels) the service stops
+ * taking new work and waits up to {@code notification.consumer.shutdown-timeout} for the
+ * pipelines to drain; deliveries it did not start are requeued, so none is processed twice.
+ */
 @Service
-public class NotificationService {
+public class NotificationService implements SmartLifecycle {
     
     private static final Logger logger = LoggerFactory.getLogger(NotificationService.class);
     
+    private static final String SHARED_CONCURRENCY =
+        "${spring.rabbitmq.listener.simple.concurrency:1}-${spring.rabbitmq.listener.simple.max-concurrency:1}";
+    
     @Autowired
     private RabbitTemplate rabbitTemplate;
     
     @Autowired
     private RestTemplate restTemplate;
     
-    public void sendAsyncNotification(String orderId, String status) {
+    @Autowired
+    private NotificationConsumerMetrics consumerMetrics;
+    
+    @Autowired
+    private NotificationPipelineProperties pipelineProperties;
+    
+    @Autowired
+    private ObservationRegistry observationRegistry;
+    
+    @Autowired
+    private EnrichmentCache enrichmentCache;
+    
+    @Autowired
+    private ErrorTagger errorTagger;
+    
+    @Autowired
+    private Tracer tracer;
+    
+    @Autowired
+    private MeterRegistry meterRegistry;
+    
+    // Injected so the listener containers are only stopped after this service has drained
+    @Autowired
+    private RabbitListenerEndpointRegistry listenerRegistry;
+    
+    @Autowired
+    private PendingAcks pendingAcks;
+    
+    @Value("${notification.consumer.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+    
+    private final AtomicInteger inFlight = new AtomicInteger();
+    
+    private final CountDownLatch drained = new CountDownLatch(1);
+    
+    private volatile boolean draining;
+    
+    private volatile boolean running;
+    
+    private final Map<NotificationChannel, Counter> deliveredCounters = new EnumMap<>(NotificationChannel.class);
+    
+    private final Map<NotificationChannel, NotificationPipeline> pipelines = new EnumMap<>(NotificationChannel.class);
+    
+    public void sendAsyncNotification(String orderId, NotificationStatus status) {
         logger.info("Service D: Sending async notification to queue for order {}", orderId);
         
-        NotificationRequest request = new NotificationRequest(orderId, "ORDER_UPDATE", status, "EMAIL", true);
-        rabbitTemplate.convertAndSend("notification-exchange", "notification.order", request);
+        NotificationRequest request = new NotificationRequest(orderId, NotificationType.ORDER_UPDATE, status,
+            NotificationChannel.EMAIL, true);
+        rabbitTemplate.convertAndSend(NotificationRouting.EXCHANGE, NotificationRouting.routingKey(request), request);
         
         logger.info("Service D: Notification message sent to queue");
     }
     
-    @RabbitListener(queues = "notification-queue")
-    public void processNotification(NotificationRequest request) {
+    /**
+     * Each queue has its own listener container, and each channel its own pipeline, so a slow
+     * channel only holds up its own consumers. Messages on the default queue go to the pipeline
+     * of their channel.
+     */
+    @RabbitListener(id = NotificationConsumerMetrics.EMAIL_LISTENER_ID, queues = NotificationRouting.EMAIL_QUEUE,
+        concurrency = "${notification.consumer.concurrency.email:" + SHARED_CONCURRENCY + "}", ackMode = "MANUAL")
+    @RabbitListener(id = NotificationConsumerMetrics.SMS_LISTENER_ID, queues = NotificationRouting.SMS_QUEUE,
+        concurrency = "${notification.consumer.concurrency.sms:" + SHARED_CONCURRENCY + "}", ackMode = "MANUAL")
+    @RabbitListener(id = NotificationConsumerMetrics.PUSH_LISTENER_ID, queues = NotificationRouting.PUSH_QUEUE,
+        concurrency = "${notification.consumer.concurrency.push:" + SHARED_CONCURRENCY + "}", ackMode = "MANUAL")
+    @RabbitListener(id = NotificationConsumerMetrics.DEFAULT_LISTENER_ID, queues = NotificationRouting.DEFAULT_QUEUE,
+        concurrency = "${notification.consumer.concurrency.default:" + SHARED_CONCURRENCY + "}", ackMode = "MANUAL")
+    public void processNotification(NotificationRequest request, Channel channel,
+                                    @Header(AmqpHeaders.DELIVERY_TAG) long deliveryTag,
+                                    @Header(AmqpHeaders.CONSUMER_QUEUE) String queue) throws InterruptedException {
+        inFlight.incrementAndGet();
+        if (draining) {
+            // Shutting down: hold the delivery until the pipelines have drained, then hand it back
+            finished();
+            drained.await();
+            requeue(channel, deliveryTag);
+            return;
+        }
         logger.info("Service D: Processing async notification from queue for order {}", request.getOrderId());
-        
-        prepareNotificationData(request);
-        
-        enrichNotificationWithUserData(request);
-        
-        formatNotificationContent(request);
-        
-        deliverNotification(request);
-        
-        if (request.isCallbackRequired()) {
-            sendCallbackToServiceA(request.getOrderId());
+        consumerMetrics.messageStarted(queue);
+        Observation processing = Observation.createNotStarted("service-d.process-notification", observationRegistry)
+            .lowCardinalityKeyValue(NotificationTags.channel(request.getChannel()))
+            .lowCardinalityKeyValue(NotificationTags.type(request.getType()))
+            .start();
+        pendingAcks.hold(channel);
+        try {
+            NotificationPipeline pipeline = pipelines.get(NotificationTags.channelOf(request.getChannel()));
+            if (pipeline == null) {
+                throw new IllegalStateException("No pipeline for channel " + request.getChannel());
+            }
+            pipeline.submit(request, processing).whenComplete((ignored, error) -> {
+                complete(processing, queue, channel, deliveryTag, error);
+                if (error == null) {
+                    logger.info("Service D: Async notification processed for order {}", request.getOrderId());
+                }
+            });
+        } catch (InterruptedException e) {
+            // Interrupted while the pipeline was full: the notification was not started, so hand it back
+            processing.stop();
+            consumerMetrics.messageFinished(queue, false);
+            requeue(channel, deliveryTag);
+            pendingAcks.release(channel);
+            finished();
+            throw e;
+        } catch (RuntimeException e) {
+            logger.warn("Service D: Could not process notification for order {}: {}", request.getOrderId(),
+                e.getMessage());
+            complete(processing, queue, channel, deliveryTag, e);
+        }
+    }
+    
+    private void complete(Observation processing, String queue, Channel channel, long deliveryTag, Throwable error) {
+        if (error != null) {
+            processing.error(error);
+        }
+        processing.stop();
+        consumerMetrics.messageFinished(queue, error == null);
+        acknowledge(channel, deliveryTag, error == null);
+        finished();
+    }
+    
+    private void finished() {
+        if (inFlight.decrementAndGet() == 0 && draining) {
+            synchronized (inFlight) {
+                inFlight.notifyAll();
+            }
+        }
+    }
+    
+    @Override
+    public void start() {
+        running = true;
+    }
+    
+    @Override
+    public void stop() {
+        draining = true;
+        long deadline = System.nanoTime() + shutdownTimeout.toNanos();
+        try {
+            synchronized (inFlight) {
+                long remaining;
+                while (inFlight.get() > 0 && (remaining = deadline - System.nanoTime()) > 0) {
+                    inFlight.wait(Math.max(1, TimeUnit.NANOSECONDS.toMillis(remaining)));
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (inFlight.get() > 0) {
+            logger.warn("Service D: {} notifications still in flight after {}; the broker will redeliver them",
+                inFlight.get(), shutdownTimeout);
+        }
+        // Whatever is left will be redelivered; closing the consumer channels need not wait for it
+        pendingAcks.stopWaiting();
+        drained.countDown();
+        running = false;
+    }
+    
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+    
+    @PostConstruct
+    public void startPipelines() {
+        for (NotificationChannel channel : NotificationChannel.values()) {
+            deliveredCounters.put(channel, Counter.builder("notification.delivered")
+                .description("Notifications handed to a delivery channel")
+                .tag(NotificationTags.CHANNEL, channel.name())
+                .register(meterRegistry));
+            NotificationPipeline pipeline = new NotificationPipeline(channel.name(), List.of(
+                stage("prepare", "service-d.prepare-data", this::prepareNotificationData),
+                stage("enrich", "service-d.enrich-userdata", this::enrichNotificationWithUserData),
+                stage("format", "service-d.format-content", this::formatNotificationContent),
+                deliveryStage(),
+                stage("callback", "service-d.async-callback", NotificationRequest::isCallbackRequired,
+                    request -> sendCallbackToServiceA(request.getOrderId()))
+            ), observationRegistry, tracer, meterRegistry);
+            pipeline.start();
+            pipelines.put(channel, pipeline);
+        }
+    }
+    
+    @PreDestroy
+    public void stopPipelines() {
+        pipelines.values().forEach(NotificationPipeline::stop);
+    }
+    
+    private NotificationPipeline.Stage stage(String name, String observationName, Consumer<NotificationRequest> action) {
+        return stage(name, observationName, request -> true, action);
+    }
+    
+    private NotificationPipeline.Stage stage(String name, String observationName,
+                                             Predicate<NotificationRequest> condition, Consumer<NotificationRequest> action) {
+        NotificationPipelineProperties.StageSettings settings = pipelineProperties.stage(name);
+        return new NotificationPipeline.MessageStage(name, observationName, settings.getWorkers(), settings.getQueueCapacity(),
+            condition, action);
+    }
+    
+    private NotificationPipeline.Stage deliveryStage() {
+        NotificationPipelineProperties.StageSettings settings = pipelineProperties.stage("deliver");
+        if (settings.getBatchSize() <= 1) {
+            return stage("deliver", "service-d.deliver-notification", this::deliverNotification);
+        }
+        return new NotificationPipeline.BatchStage("deliver", "service-d.deliver-notification", settings.getWorkers(),
+            settings.getQueueCapacity(), settings.getBatchSize(), settings.getBatchWindow(), this::deliverNotifications);
+    }
+    
+    private void acknowledge(Channel channel, long deliveryTag, boolean processed) {
+        try {
+            if (processed) {
+                channel.basicAck(deliveryTag, false);
+            } else {
+                // Dead-lettered to notification-dlq
+                channel.basicReject(deliveryTag, false);
+            }
+        } catch (IOException | ShutdownSignalException e) {
+            logger.warn("Service D: Could not acknowledge delivery {}: {}", deliveryTag, e.getMessage());
+        } finally {
+            pendingAcks.release(channel);
+        }
+    }
+    
+    private void requeue(Channel channel, long deliveryTag) {
+        try {
+            channel.basicReject(deliveryTag, true);
+        } catch (IOException | ShutdownSignalException e) {
+            logger.debug("Service D: Could not requeue delivery {}: {}", deliveryTag, e.getMessage());
         }
-        
-        logger.info("Service D: Async notification processed for order {}", request.getOrderId());
     }
     
-    @Observed(name = "service-d.prepare-data")
     private void prepareNotificationData(NotificationRequest request) {
         logger.debug("Service D: Preparing notification data");
         try {
@@ -58,17 +300,12 @@ public class NotificationService {
         }
     }
     
-    @Observed(name = "service-d.enrich-userdata")
     private void enrichNotificationWithUserData(NotificationRequest request) {
         logger.debug("Service D: Enriching with user data");
-        try {
-            Thread.sleep(40);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        UserData userData = enrichmentCache.get(request.getOrderId()).join();
+        logger.debug("Service D: Enriched order {} for {} ({})", request.getOrderId(), userData.customerName(), userData.locale());
     }
     
-    @Observed(name = "service-d.format-content")
     private void formatNotificationContent(NotificationRequest request) {
         logger.debug("Service D: Formatting notification content");
         try {
@@ -78,7 +315,6 @@ public class NotificationService {
         }
     }
     
-    @Observed(name = "service-d.deliver-notification")
     private void deliverNotification(NotificationRequest request) {
         logger.debug("Service D: Delivering notification via {}", request.getChannel());
         try {
@@ -86,9 +322,23 @@ public class NotificationService {
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
         }
+        deliveredCounters.get(NotificationTags.channelOf(request.getChannel())).increment();
+    }
+    
+    /**
+     * Delivers one batch; every pipeline serves a single channel, so the batch shares it.
+     */
+    private void deliverNotifications(List<NotificationRequest> requests) {
+        NotificationChannel channel = NotificationTags.channelOf(requests.get(0).getChannel());
+        logger.debug("Service D: Delivering {} notifications via {}", requests.size(), channel);
+        try {
+            Thread.sleep(50);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        deliveredCounters.get(channel).increment(requests.size());
     }
     
-    @Observed(name = "service-d.async-callback")
     private void sendCallbackToServiceA(String orderId) {
         logger.info("Service D: Sending callback to Service A for order {}", orderId);
         try {
@@ -99,6 +349,7 @@ public class NotificationService {
             logger.info("Service D: Callback response from Service A: {}", response);
         } catch (Exception e) {
             logger.warn("Service D: Callback to Service A failed: {}", e.getMessage());
+            errorTagger.tag(ErrorType.DOWNSTREAM, e.getMessage());
         }
     }
 }
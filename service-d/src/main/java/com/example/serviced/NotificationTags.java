@@ -0,0 +1,47 @@
+package com.example.serviced;
+
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationType;
+import io.micrometer.common.KeyValue;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Key values for tagging observations and meters with a notification's channel and type. One is
+ * built per enum constant up front, so tagging allocates nothing and the values are limited to
+ * the constants' names; a missing field is tagged {@code UNKNOWN}.
+ */
+final class NotificationTags {
+    
+    static final String CHANNEL = "channel";
+    
+    static final String TYPE = "type";
+    
+    private static final Map<NotificationChannel, KeyValue> CHANNELS = keyValues(CHANNEL, NotificationChannel.class);
+    
+    private static final Map<NotificationType, KeyValue> TYPES = keyValues(TYPE, NotificationType.class);
+    
+    private NotificationTags() {
+    }
+    
+    static NotificationChannel channelOf(NotificationChannel channel) {
+        return channel == null ? NotificationChannel.UNKNOWN : channel;
+    }
+    
+    static KeyValue channel(NotificationChannel channel) {
+        return CHANNELS.get(channelOf(channel));
+    }
+    
+    static KeyValue type(NotificationType type) {
+        return TYPES.get(type == null ? NotificationType.UNKNOWN : type);
+    }
+    
+    private static <E extends Enum<E>> Map<E, KeyValue> keyValues(String key, Class<E> type) {
+        Map<E, KeyValue> keyValues = new EnumMap<>(type);
+        for (E constant : type.getEnumConstants()) {
+            keyValues.put(constant, KeyValue.of(key, constant.name()));
+        }
+        return keyValues;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.serviced;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+@ConfigurationProperties(prefix = "notification.templates")
+public class NotificationTemplateProperties {
+    
+    private long maximumSize = 500;
+    
+    private Duration expireAfterWrite = Duration.ofHours(1);
+    
+    private Duration refreshAfterWrite = Duration.ofMinutes(5);
+    
+    private String defaultTemplate = "Dear Customer, your order {{orderId}} is {{status}}";
+    
+    private Map<String, String> definitions = new LinkedHashMap<>();
+    
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+    
+    public void setMaximumSize(long maximumSize) {
+        this.maximumSize = maximumSize;
+    }
+    
+    public Duration getExpireAfterWrite() {
+        return expireAfterWrite;
+    }
+    
+    public void setExpireAfterWrite(Duration expireAfterWrite) {
+        this.expireAfterWrite = expireAfterWrite;
+    }
+    
+    public Duration getRefreshAfterWrite() {
+        return refreshAfterWrite;
+    }
+    
+    public void setRefreshAfterWrite(Duration refreshAfterWrite) {
+        this.refreshAfterWrite = refreshAfterWrite;
+    }
+    
+    public String getDefaultTemplate() {
+        return defaultTemplate;
+    }
+    
+    public void setDefaultTemplate(String defaultTemplate) {
+        this.defaultTemplate = defaultTemplate;
+    }
+    
+    public Map<String, String> getDefinitions() {
+        return definitions;
+    }
+    
+    public void setDefinitions(Map<String, String> definitions) {
+        this.definitions = definitions;
+    }
+}
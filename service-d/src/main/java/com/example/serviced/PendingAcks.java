@@ -0,0 +1,177 @@
+package com.example.serviced;
+
+import com.rabbitmq.client.Channel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.amqp.rabbit.connection.Connection;
+import org.springframework.amqp.rabbit.connection.ConnectionFactory;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps a consumer channel open while acks are still owed on it. Pipeline workers ack after the
+ * listener has returned, so when the container stops an idle consumer, closing its channel would
+ * hand every delivery not yet acked back to the broker. Channels created through
+ * {@link #wrap(ConnectionFactory)} count the deliveries passed to {@link #hold(Channel)} until
+ * {@link #release(Channel)}, and {@code close()} waits up to the close timeout for that count to
+ * reach zero. Once {@link #stopWaiting()} is called (the service has drained or given up on
+ * shutdown) channels close straight away.
+ */
+final class PendingAcks {
+    
+    private static final Logger logger = LoggerFactory.getLogger(PendingAcks.class);
+    
+    private final Duration closeTimeout;
+    
+    private volatile boolean waiting = true;
+    
+    PendingAcks(Duration closeTimeout) {
+        this.closeTimeout = closeTimeout;
+    }
+    
+    ConnectionFactory wrap(ConnectionFactory connectionFactory) {
+        return proxy(connectionFactory, new Delegate(connectionFactory) {
+            @Override
+            Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = super.invoke(proxy, method, args);
+                return result instanceof Connection connection ? connection(connection) : result;
+            }
+        });
+    }
+    
+    /**
+     * Counts a delivery on {@code channel} whose ack will be sent after the listener returns.
+     */
+    void hold(Channel channel) {
+        if (channel instanceof Tracked tracked) {
+            tracked.pendingAcks().hold();
+        }
+    }
+    
+    /**
+     * Marks a delivery counted by {@link #hold(Channel)} as acked, rejected or abandoned.
+     */
+    void release(Channel channel) {
+        if (channel instanceof Tracked tracked) {
+            tracked.pendingAcks().release();
+        }
+    }
+    
+    void stopWaiting() {
+        waiting = false;
+    }
+    
+    private Connection connection(Connection connection) {
+        return proxy(connection, new Delegate(connection) {
+            @Override
+            Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                Object result = super.invoke(proxy, method, args);
+                return result instanceof Channel channel ? channel(channel) : result;
+            }
+        });
+    }
+    
+    private Channel channel(Channel channel) {
+        Counter pending = new Counter(channel);
+        return proxy(channel, new Delegate(channel) {
+            @Override
+            Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+                if (method.getDeclaringClass() == Tracked.class) {
+                    return pending;
+                }
+                if (method.getName().equals("close")) {
+                    pending.await();
+                }
+                return super.invoke(proxy, method, args);
+            }
+        }, Tracked.class);
+    }
+    
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(T target, Delegate delegate, Class<?>... extraInterfaces) {
+        Class<?>[] targetInterfaces = ClassUtils.getAllInterfaces(target);
+        Class<?>[] interfaces = new Class<?>[targetInterfaces.length + extraInterfaces.length];
+        System.arraycopy(targetInterfaces, 0, interfaces, 0, targetInterfaces.length);
+        System.arraycopy(extraInterfaces, 0, interfaces, targetInterfaces.length, extraInterfaces.length);
+        return (T) Proxy.newProxyInstance(PendingAcks.class.getClassLoader(), interfaces, delegate::invoke);
+    }
+    
+    private interface Tracked {
+    
+        Counter pendingAcks();
+    }
+    
+    private abstract static class Delegate {
+    
+        private final Object target;
+    
+        Delegate(Object target) {
+            this.target = target;
+        }
+    
+        Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    if (method.getParameterCount() == 1) {
+                        return proxy == args[0];
+                    }
+                    break;
+                case "hashCode":
+                    if (method.getParameterCount() == 0) {
+                        return System.identityHashCode(proxy);
+                    }
+                    break;
+                default:
+                    break;
+            }
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+    
+    private final class Counter {
+    
+        private final Channel channel;
+    
+        private int pending;
+    
+        Counter(Channel channel) {
+            this.channel = channel;
+        }
+    
+        synchronized void hold() {
+            pending++;
+        }
+    
+        synchronized void release() {
+            if (--pending == 0) {
+                notifyAll();
+            }
+        }
+    
+        synchronized void await() {
+            long deadline = System.nanoTime() + closeTimeout.toNanos();
+            long remaining;
+            try {
+                // The channel can also be closed by the broker, in which case the acks are moot
+                while (pending > 0 && waiting && channel.isOpen() && (remaining = deadline - System.nanoTime()) > 0) {
+                    wait(Math.max(1, Math.min(TimeUnit.NANOSECONDS.toMillis(remaining), 1000)));
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (pending > 0 && waiting && channel.isOpen()) {
+                logger.warn("Service D: Closing channel {} with {} unacked notifications; the broker will redeliver them",
+                    channel.getChannelNumber(), pending);
+            }
+        }
+    }
+}
@@ -1,45 +1,51 @@
 package com.example.serviced;
 
+import com.example.notification.NotificationFormat;
+import com.example.notification.NotificationMessageConverter;
+import com.example.notification.NotificationRouting;
 import io.micrometer.observation.ObservationRegistry;
-import org.springframework.amqp.core.Binding;
-import org.springframework.amqp.core.BindingBuilder;
-import org.springframework.amqp.core.Queue;
-import org.springframework.amqp.core.TopicExchange;
+import org.springframework.amqp.core.Declarables;
 import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFactory;
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.amqp.support.converter.MessageConverter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.amqp.SimpleRabbitListenerContainerFactoryConfigurer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.time.Duration;
+
 @Configuration
 public class RabbitMQConfig {
     
-    public static final String QUEUE_NAME = "notification-queue";
-    public static final String EXCHANGE_NAME = "notification-exchange";
-    public static final String ROUTING_KEY = "notification.order";
+    @Value("${notification.consumer.consecutive-active-trigger:3}")
+    private int consecutiveActiveTrigger;
     
-    @Bean
-    public Queue notificationQueue() {
-        return new Queue(QUEUE_NAME, true);
-    }
+    @Value("${notification.consumer.consecutive-idle-trigger:10}")
+    private int consecutiveIdleTrigger;
     
-    @Bean
-    public TopicExchange notificationExchange() {
-        return new TopicExchange(EXCHANGE_NAME);
-    }
+    @Value("${notification.consumer.start-consumer-min-interval:2s}")
+    private Duration startConsumerMinInterval;
+    
+    @Value("${notification.consumer.stop-consumer-min-interval:30s}")
+    private Duration stopConsumerMinInterval;
+    
+    @Value("${notification.consumer.shutdown-timeout:30s}")
+    private Duration shutdownTimeout;
+    
+    @Value("${notification.message-format:binary}")
+    private NotificationFormat messageFormat;
     
     @Bean
-    public Binding binding(Queue notificationQueue, TopicExchange notificationExchange) {
-        return BindingBuilder
-            .bind(notificationQueue)
-            .to(notificationExchange)
-            .with(ROUTING_KEY);
+    public Declarables notificationTopology() {
+        return NotificationRouting.declarables();
     }
     
     @Bean
-    public Jackson2JsonMessageConverter messageConverter() {
-        return new Jackson2JsonMessageConverter();
+    public MessageConverter messageConverter() {
+        return new NotificationMessageConverter(new Jackson2JsonMessageConverter(), messageFormat);
     }
     
     @Bean
@@ -51,14 +57,28 @@ public class RabbitMQConfig {
         return rabbitTemplate;
     }
     
+    @Bean
+    PendingAcks pendingAcks() {
+        return new PendingAcks(shutdownTimeout);
+    }
+    
     @Bean
     public SimpleRabbitListenerContainerFactory rabbitListenerContainerFactory(
+            SimpleRabbitListenerContainerFactoryConfigurer configurer,
             ConnectionFactory connectionFactory,
-            ObservationRegistry observationRegistry) {
+            ObservationRegistry observationRegistry,
+            PendingAcks pendingAcks) {
         SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
-        factory.setConnectionFactory(connectionFactory);
+        // Applies spring.rabbitmq.listener.simple.* (concurrency, max-concurrency, prefetch).
+        // Consumer channels stay open on close until the pipelines have acked their deliveries,
+        // so idle consumers can be stopped without handing in-flight notifications back.
+        configurer.configure(factory, pendingAcks.wrap(connectionFactory));
         factory.setMessageConverter(messageConverter());
         factory.setObservationEnabled(true);
+        factory.setConsecutiveActiveTrigger(consecutiveActiveTrigger);
+        factory.setConsecutiveIdleTrigger(consecutiveIdleTrigger);
+        factory.setStartConsumerMinInterval(startConsumerMinInterval.toMillis());
+        factory.setStopConsumerMinInterval(stopConsumerMinInterval.toMillis());
         return factory;
     }
 }
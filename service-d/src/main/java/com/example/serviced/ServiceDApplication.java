@@ -2,11 +2,14 @@ package com.example.serviced;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
+import org.springframework.http.client.ClientHttpRequestFactory;
 import org.springframework.web.client.RestTemplate;
 
 @SpringBootApplication
+@EnableConfigurationProperties({NotificationPipelineProperties.class, NotificationTemplateProperties.class})
 public class ServiceDApplication {
     
     public static void main(String[] args) {
@@ -14,7 +17,7 @@ public class ServiceDApplication {
     }
     
     @Bean
-    public RestTemplate restTemplate(RestTemplateBuilder builder) {
-        return builder.build();
+    public RestTemplate restTemplate(RestTemplateBuilder builder, ClientHttpRequestFactory pooledClientHttpRequestFactory) {
+        return builder.requestFactory(() -> pooledClientHttpRequestFactory).build();
     }
 }
@@ -1,5 +1,10 @@
 package com.example.serviced;
 
+import com.example.common.observation.ErrorTagger;
+import com.example.common.observation.ErrorType;
+import com.example.notification.NotificationChannel;
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationType;
 import io.micrometer.observation.annotation.Observed;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -22,15 +27,21 @@ public class ServiceDController {
     @Autowired
     private NotificationService notificationService;
     
+    @Autowired
+    private TemplateRegistry templateRegistry;
+    
+    @Autowired
+    private ErrorTagger errorTagger;
+    
     @PostMapping("/notify")
     public String sendNotification(@RequestBody NotificationRequest request) {
         logger.info("Service D: Received notification request for order {}", request.getOrderId());
         
         validateNotificationRequest(request);
         
-        String templateContent = loadNotificationTemplate(request.getType());
+        CompiledTemplate template = loadNotificationTemplate(request.getType());
         
-        String personalizedMessage = personalizeMessage(templateContent, request);
+        String personalizedMessage = personalizeMessage(template, request);
         
         boolean sent = sendToChannel(request.getChannel(), personalizedMessage);
         
@@ -74,30 +85,18 @@ public class ServiceDController {
     }
     
     @Observed(name = "service-d.load-template")
-    private String loadNotificationTemplate(String type) {
-        logger.debug("Service D: Loading notification template for type {}", type);
-        try {
-            Thread.sleep(30);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        return "Dear Customer, your order {{orderId}} is {{status}}";
+    private CompiledTemplate loadNotificationTemplate(NotificationType type) {
+        return templateRegistry.get(type);
     }
     
     @Observed(name = "service-d.personalize-message")
-    private String personalizeMessage(String template, NotificationRequest request) {
+    private String personalizeMessage(CompiledTemplate template, NotificationRequest request) {
         logger.debug("Service D: Personalizing message for order {}", request.getOrderId());
-        try {
-            Thread.sleep(25);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
-        return template.replace("{{orderId}}", request.getOrderId())
-                       .replace("{{status}}", request.getStatus());
+        return templateRegistry.render(template, request);
     }
     
     @Observed(name = "service-d.send-to-channel")
-    private boolean sendToChannel(String channel, String message) {
+    private boolean sendToChannel(NotificationChannel channel, String message) {
         logger.debug("Service D: Sending notification via channel {}", channel);
         try {
             Thread.sleep(40);
@@ -128,6 +127,7 @@ public class ServiceDController {
             logger.info("Service D: Callback response: {}", response);
         } catch (Exception e) {
             logger.warn("Service D: Failed to trigger callback: {}", e.getMessage());
+            errorTagger.tag(ErrorType.DOWNSTREAM, e.getMessage());
         }
     }
     
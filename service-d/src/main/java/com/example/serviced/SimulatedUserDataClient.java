@@ -0,0 +1,22 @@
+package com.example.serviced;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+@Component
+public class SimulatedUserDataClient implements UserDataClient {
+    
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedUserDataClient.class);
+    
+    @Override
+    public UserData fetch(String orderId) {
+        logger.debug("Service D: Fetching user data for order {}", orderId);
+        try {
+            Thread.sleep(40);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return new UserData(orderId, "Customer", "en-US", "EMAIL");
+    }
+}
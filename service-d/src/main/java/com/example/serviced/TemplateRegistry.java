@@ -0,0 +1,78 @@
+package com.example.serviced;
+
+import com.example.notification.NotificationRequest;
+import com.example.notification.NotificationType;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compiled notification templates keyed by notification type. Entries are refreshed in the
+ * background once {@code refresh-after-write} has passed, so callers only wait on the first
+ * load of a type.
+ */
+@Component
+public class TemplateRegistry {
+    
+    private static final Logger logger = LoggerFactory.getLogger(TemplateRegistry.class);
+    
+    private static final String DEFAULT_TYPE = "DEFAULT";
+    
+    private static final int MAX_RETAINED_BUFFER = 8 * 1024;
+    
+    private final ThreadLocal<StringBuilder> buffers = ThreadLocal.withInitial(() -> new StringBuilder(256));
+    
+    private final NotificationTemplateProperties properties;
+    
+    private final LoadingCache<String, CompiledTemplate> templates;
+    
+    private final Timer renderTimer;
+    
+    public TemplateRegistry(NotificationTemplateProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.templates = Caffeine.newBuilder()
+            .maximumSize(properties.getMaximumSize())
+            .expireAfterWrite(properties.getExpireAfterWrite())
+            .refreshAfterWrite(properties.getRefreshAfterWrite())
+            .recordStats()
+            .build(this::loadTemplate);
+        CaffeineCacheMetrics.monitor(meterRegistry, templates, "notification-templates");
+        this.renderTimer = Timer.builder("notification.template.render")
+            .description("Time spent rendering a compiled notification template")
+            .register(meterRegistry);
+    }
+    
+    public CompiledTemplate get(NotificationType type) {
+        return templates.get(type == null ? DEFAULT_TYPE : type.name());
+    }
+    
+    public String render(CompiledTemplate template, NotificationRequest request) {
+        long start = System.nanoTime();
+        StringBuilder buffer = buffers.get();
+        buffer.setLength(0);
+        template.renderTo(request, buffer);
+        String message = buffer.toString();
+        if (buffer.capacity() > MAX_RETAINED_BUFFER) {
+            buffers.remove();
+        }
+        renderTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return message;
+    }
+    
+    private CompiledTemplate loadTemplate(String type) {
+        logger.debug("Service D: Loading notification template for type {}", type);
+        try {
+            Thread.sleep(30);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return CompiledTemplate.compile(properties.getDefinitions().getOrDefault(type, properties.getDefaultTemplate()));
+    }
+}
@@ -0,0 +1,4 @@
+package com.example.serviced;
+
+public record UserData(String orderId, String customerName, String locale, String preferredChannel) {
+}
@@ -0,0 +1,6 @@
+package com.example.serviced;
+
+public interface UserDataClient {
+    
+    UserData fetch(String orderId);
+}
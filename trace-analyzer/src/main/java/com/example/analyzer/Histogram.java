@@ -0,0 +1,53 @@
+package com.example.analyzer;
+
+/**
+ * Fixed-size histogram of microsecond values in buckets a quarter of a power of two wide, so
+ * percentiles are within about 19% of the true value whatever the number of samples.
+ */
+public class Histogram {
+    
+    private static final int BUCKETS_PER_DOUBLING = 4;
+    
+    private final long[] counts = new long[64 * BUCKETS_PER_DOUBLING];
+    
+    private long total;
+    
+    private long max;
+    
+    public void record(long micros) {
+        long value = Math.max(0, micros);
+        counts[bucket(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+    
+    /**
+     * Upper bound of the bucket holding the given percentile, capped at the largest value seen.
+     */
+    public long percentile(double percentile) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(percentile * total);
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(max, upperBound(i));
+            }
+        }
+        return max;
+    }
+    
+    public long max() {
+        return max;
+    }
+    
+    private static int bucket(long value) {
+        return (int) Math.floor(BUCKETS_PER_DOUBLING * Math.log(value + 1) / Math.log(2));
+    }
+    
+    private static long upperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(2, (bucket + 1) / (double) BUCKETS_PER_DOUBLING)) - 1;
+    }
+}
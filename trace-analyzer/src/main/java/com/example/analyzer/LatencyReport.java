@@ -0,0 +1,141 @@
+package com.example.analyzer;
+
+import java.io.PrintStream;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Running totals of where trace time goes, per span label. Memory depends on the number of
+ * distinct labels, at most {@code maxLabels}, not on the number of traces; further labels are
+ * summed under "(other)".
+ */
+public class LatencyReport {
+    
+    private static final String OTHER = "(other)";
+    
+    private final int maxLabels;
+    
+    private final Map<String, LabelStats> stats = new HashMap<>();
+    
+    private final Histogram traceDurations = new Histogram();
+    
+    private long traces;
+    
+    private long spans;
+    
+    private long criticalTotal;
+    
+    private long selfTotal;
+    
+    public LatencyReport(int maxLabels) {
+        this.maxLabels = maxLabels;
+    }
+    
+    public void add(List<SpanRecord> trace) {
+        if (trace.isEmpty()) {
+            return;
+        }
+        TraceTree tree = new TraceTree(trace);
+        traces++;
+        spans += tree.size();
+        traceDurations.record(tree.duration());
+        for (int i = 0; i < tree.size(); i++) {
+            String label = tree.label(i);
+            LabelStats labelStats = stats.get(label);
+            if (labelStats == null) {
+                labelStats = stats.computeIfAbsent(stats.size() < maxLabels ? label : OTHER, key -> new LabelStats());
+            }
+            labelStats.add(tree, i, traces);
+            criticalTotal += tree.criticalTime(i);
+            selfTotal += tree.selfTime(i);
+        }
+    }
+    
+    public void print(PrintStream out, int top) {
+        if (traces == 0) {
+            out.println("No traces found.");
+            return;
+        }
+        out.printf("Traces: %,d   spans: %,d   duration p50 %s   p95 %s   p99 %s   max %s%n%n",
+            traces, spans, millis(traceDurations.percentile(0.50)), millis(traceDurations.percentile(0.95)),
+            millis(traceDurations.percentile(0.99)), millis(traceDurations.max()));
+        out.println("Ranked by time on the critical path. Crit/trace averages over traces the label occurs in;");
+        out.println("self time is time not covered by child spans, network and remote queueing for client hops.");
+        out.println();
+        out.printf("%4s  %6s  %10s  %7s  %6s  %10s  %10s  %8s  %6s  %s%n",
+            "Rank", "Crit%", "Crit/trace", "OnPath%", "Self%", "Self p50", "Self p95", "Spans", "Errors", "Label");
+        
+        List<Map.Entry<String, LabelStats>> ranked = stats.entrySet().stream()
+            .sorted(Comparator.comparingLong((Map.Entry<String, LabelStats> entry) -> entry.getValue().critical)
+                .reversed()
+                .thenComparing(Comparator.comparingLong((Map.Entry<String, LabelStats> entry) -> entry.getValue().self)
+                    .reversed()))
+            .limit(top)
+            .toList();
+        int rank = 1;
+        for (Map.Entry<String, LabelStats> entry : ranked) {
+            LabelStats label = entry.getValue();
+            out.printf("%4d  %5.1f%%  %10s  %6.1f%%  %5.1f%%  %10s  %10s  %,8d  %,6d  %s%n",
+                rank++,
+                percent(label.critical, criticalTotal),
+                millis(label.critical / label.traces),
+                percent(label.tracesOnPath, label.traces),
+                percent(label.self, selfTotal),
+                millis(label.selfTimes.percentile(0.50)),
+                millis(label.selfTimes.percentile(0.95)),
+                label.count,
+                label.errors,
+                entry.getKey());
+        }
+    }
+    
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+    
+    private static String millis(long micros) {
+        return String.format("%.1f ms", micros / 1000.0);
+    }
+    
+    private static final class LabelStats {
+        
+        private final Histogram selfTimes = new Histogram();
+        
+        private long count;
+        
+        private long errors;
+        
+        private long self;
+        
+        private long critical;
+        
+        private long traces;
+        
+        private long tracesOnPath;
+        
+        private long lastTrace;
+        
+        private long lastTraceOnPath;
+        
+        private void add(TraceTree tree, int index, long traceNumber) {
+            count++;
+            if (tree.span(index).error()) {
+                errors++;
+            }
+            self += tree.selfTime(index);
+            critical += tree.criticalTime(index);
+            selfTimes.record(tree.selfTime(index));
+            // Per-trace counts, so a label seen several times in one trace counts once.
+            if (lastTrace != traceNumber) {
+                lastTrace = traceNumber;
+                traces++;
+            }
+            if (tree.criticalTime(index) > 0 && lastTraceOnPath != traceNumber) {
+                lastTraceOnPath = traceNumber;
+                tracesOnPath++;
+            }
+        }
+    }
+}
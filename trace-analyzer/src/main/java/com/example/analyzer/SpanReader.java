@@ -0,0 +1,109 @@
+package com.example.analyzer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Streams Zipkin v2 JSON and hands over one trace at a time. Accepts what {@code /api/v2/traces}
+ * returns, an array of traces, as well as flat span arrays such as collector payloads, several of
+ * which may follow each other in one file. Only the trace being read is held in memory, except for
+ * flat arrays: their spans are grouped by trace ID with at most {@code maxPendingTraces} traces
+ * open, the least recently seen one being analyzed first when a new trace does not fit.
+ */
+public class SpanReader {
+    
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    
+    private final int maxPendingTraces;
+    
+    private final LinkedHashMap<String, List<SpanRecord>> pending = new LinkedHashMap<>();
+    
+    public SpanReader(int maxPendingTraces) {
+        this.maxPendingTraces = maxPendingTraces;
+    }
+    
+    public void read(InputStream input, Consumer<List<SpanRecord>> traceConsumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(input)) {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null) {
+                if (token != JsonToken.START_ARRAY) {
+                    throw new IOException("Expected a JSON array of spans or traces at " + parser.currentLocation());
+                }
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == JsonToken.START_ARRAY) {
+                        traceConsumer.accept(readTrace(parser));
+                    } else if (token == JsonToken.START_OBJECT) {
+                        group(toSpan(parser.readValueAsTree()), traceConsumer);
+                    } else {
+                        throw new IOException("Unexpected " + token + " at " + parser.currentLocation());
+                    }
+                }
+            }
+        }
+        pending.values().forEach(traceConsumer);
+        pending.clear();
+    }
+    
+    private List<SpanRecord> readTrace(JsonParser parser) throws IOException {
+        List<SpanRecord> trace = new ArrayList<>();
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            SpanRecord span = toSpan(parser.readValueAsTree());
+            if (span != null) {
+                trace.add(span);
+            }
+        }
+        return trace;
+    }
+    
+    private void group(SpanRecord span, Consumer<List<SpanRecord>> traceConsumer) {
+        if (span == null) {
+            return;
+        }
+        // Re-inserted on every span so the map stays ordered by last activity, oldest first.
+        List<SpanRecord> trace = pending.remove(span.traceId());
+        if (trace == null) {
+            trace = new ArrayList<>();
+        }
+        trace.add(span);
+        pending.put(span.traceId(), trace);
+        
+        Iterator<List<SpanRecord>> oldest = pending.values().iterator();
+        while (pending.size() > maxPendingTraces) {
+            traceConsumer.accept(oldest.next());
+            oldest.remove();
+        }
+    }
+    
+    /**
+     * Returns {@code null} for spans without timing, which cannot be placed on a timeline.
+     */
+    private static SpanRecord toSpan(JsonNode node) {
+        if (!node.hasNonNull("timestamp") || !node.hasNonNull("duration")) {
+            return null;
+        }
+        return new SpanRecord(
+            node.path("traceId").asText(),
+            node.path("id").asText(),
+            node.hasNonNull("parentId") ? node.get("parentId").asText() : null,
+            node.path("name").asText(""),
+            node.hasNonNull("kind") ? node.get("kind").asText() : null,
+            node.path("localEndpoint").path("serviceName").asText("unknown"),
+            node.path("remoteEndpoint").hasNonNull("serviceName")
+                ? node.path("remoteEndpoint").get("serviceName").asText()
+                : null,
+            node.get("timestamp").asLong(),
+            node.get("duration").asLong(),
+            node.path("tags").has("error")
+        );
+    }
+}
@@ -0,0 +1,20 @@
+package com.example.analyzer;
+
+/**
+ * The fields of a Zipkin v2 span the analysis needs; timestamps and durations are in microseconds.
+ */
+public record SpanRecord(String traceId, String id, String parentId, String name, String kind,
+                         String service, String remoteService, long timestamp, long duration, boolean error) {
+    
+    public long end() {
+        return timestamp + duration;
+    }
+    
+    public boolean isClient() {
+        return "CLIENT".equals(kind);
+    }
+    
+    public boolean isServer() {
+        return "SERVER".equals(kind);
+    }
+}
@@ -0,0 +1,126 @@
+package com.example.analyzer;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reports where time goes across many traces: critical-path share and self time per service and
+ * span name, with client hops shown as network time. Reads Zipkin's query API or JSON files.
+ *
+ * <pre>
+ * java -jar trace-analyzer/target/trace-analyzer.jar --zipkin http://localhost:9411 --service service-a
+ * java -jar trace-analyzer/target/trace-analyzer.jar --file traces.json [--file more.json.gz]
+ * </pre>
+ */
+public class TraceAnalyzer {
+    
+    private static final String USAGE = """
+        Usage: trace-analyzer [--zipkin URL] [--service NAME] [--lookback DURATION] [--limit N]
+                              [--file PATH]... [--top N] [--max-pending-traces N] [--max-labels N]
+          
+          --zipkin URL              Zipkin base URL to query (default http://localhost:9411)
+          --service NAME            service whose traces to fetch (default service-a)
+          --lookback DURATION       how far back to fetch, e.g. 15m, 1h (default 1h)
+          --limit N                 traces to fetch (default 1000)
+          --file PATH               read spans or traces exported as Zipkin v2 JSON (.gz allowed)
+                                    instead of querying Zipkin; may be repeated
+          --top N                   rows in the report (default 25)
+          --max-pending-traces N    traces held while grouping flat span files (default 10000)
+          --max-labels N            distinct span labels tracked (default 5000)
+        """;
+    
+    public static void main(String[] args) throws Exception {
+        String zipkin = "http://localhost:9411";
+        String service = "service-a";
+        Duration lookback = Duration.ofHours(1);
+        int limit = 1000;
+        int top = 25;
+        int maxPendingTraces = 10_000;
+        int maxLabels = 5_000;
+        List<Path> files = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--zipkin" -> zipkin = args[++i];
+                    case "--service" -> service = args[++i];
+                    case "--lookback" -> lookback = parseDuration(args[++i]);
+                    case "--limit" -> limit = Integer.parseInt(args[++i]);
+                    case "--file" -> files.add(Path.of(args[++i]));
+                    case "--top" -> top = Integer.parseInt(args[++i]);
+                    case "--max-pending-traces" -> maxPendingTraces = Integer.parseInt(args[++i]);
+                    case "--max-labels" -> maxLabels = Integer.parseInt(args[++i]);
+                    case "--help", "-h" -> {
+                        System.out.print(USAGE);
+                        return;
+                    }
+                    default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+                }
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Missing option value" : e.getMessage());
+            System.err.print(USAGE);
+            System.exit(2);
+        }
+        
+        LatencyReport report = new LatencyReport(maxLabels);
+        SpanReader reader = new SpanReader(maxPendingTraces);
+        if (files.isEmpty()) {
+            try (InputStream input = query(zipkin, service, lookback, limit)) {
+                reader.read(input, report::add);
+            }
+        } else {
+            for (Path file : files) {
+                try (InputStream input = open(file)) {
+                    reader.read(input, report::add);
+                }
+            }
+        }
+        report.print(System.out, top);
+    }
+    
+    private static InputStream query(String zipkin, String service, Duration lookback, int limit)
+        throws IOException, InterruptedException {
+        URI uri = URI.create(zipkin.replaceAll("/+$", "") + "/api/v2/traces"
+            + "?serviceName=" + URLEncoder.encode(service, StandardCharsets.UTF_8)
+            + "&lookback=" + lookback.toMillis()
+            + "&limit=" + limit);
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(
+            HttpRequest.newBuilder(uri).header("Accept", "application/json").build(),
+            HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IOException("Zipkin responded " + response.statusCode() + " to " + uri);
+        }
+        return response.body();
+    }
+    
+    private static InputStream open(Path file) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(file));
+        return file.toString().endsWith(".gz") ? new GZIPInputStream(input) : input;
+    }
+    
+    private static Duration parseDuration(String value) {
+        char unit = value.charAt(value.length() - 1);
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (unit) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            case 'd' -> Duration.ofDays(amount);
+            default -> throw new IllegalArgumentException("Unknown duration " + value + ", use e.g. 30s, 15m, 1h");
+        };
+    }
+}
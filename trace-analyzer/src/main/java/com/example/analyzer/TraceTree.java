@@ -0,0 +1,170 @@
+package com.example.analyzer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One trace arranged as a tree, with the self time and critical-path time of every span.
+ * <p>
+ * Self time is the part of a span not covered by any of its children. For a client span whose
+ * server span is in the trace, that is time on the network and in the remote server before and
+ * after its span; without a server span it is the whole remote call.
+ * <p>
+ * The critical path is walked back from the end of the root span: the child that finished last
+ * before the cursor is on the path, the gap after it belongs to the parent, and the walk continues
+ * inside that child and then from where it started. Work that began after its parent ended, such
+ * as messages consumed asynchronously, is off the path. Critical-path times add up to the root
+ * span's duration.
+ */
+public class TraceTree {
+    
+    private final List<SpanRecord> spans;
+    
+    private final int[] parents;
+    
+    private final List<List<Integer>> children;
+    
+    private final long[] selfTimes;
+    
+    private final long[] criticalTimes;
+    
+    private final int root;
+    
+    public TraceTree(List<SpanRecord> spans) {
+        this.spans = spans;
+        int size = spans.size();
+        this.parents = new int[size];
+        this.children = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            children.add(new ArrayList<>());
+        }
+        this.selfTimes = new long[size];
+        this.criticalTimes = new long[size];
+        
+        link();
+        int earliestRoot = -1;
+        for (int i = 0; i < size; i++) {
+            if (parents[i] < 0 && (earliestRoot < 0 || spans.get(i).timestamp() < spans.get(earliestRoot).timestamp())) {
+                earliestRoot = i;
+            }
+            selfTimes[i] = computeSelfTime(i);
+        }
+        this.root = earliestRoot;
+        if (root >= 0) {
+            walkCriticalPath(root, spans.get(root).timestamp(), spans.get(root).end());
+        }
+    }
+    
+    public int size() {
+        return spans.size();
+    }
+    
+    public SpanRecord span(int index) {
+        return spans.get(index);
+    }
+    
+    public long selfTime(int index) {
+        return selfTimes[index];
+    }
+    
+    public long criticalTime(int index) {
+        return criticalTimes[index];
+    }
+    
+    /**
+     * Duration of the root span, or 0 if every span has a parent, which only a broken trace has.
+     */
+    public long duration() {
+        return root < 0 ? 0 : spans.get(root).duration();
+    }
+    
+    /**
+     * What a span's self time is attributed to: its service and name, or for a client span the
+     * hop to the service it called.
+     */
+    public String label(int index) {
+        SpanRecord span = spans.get(index);
+        if (!span.isClient()) {
+            return span.service() + " " + span.name();
+        }
+        for (int child : children.get(index)) {
+            if (spans.get(child).isServer()) {
+                return span.service() + " -> " + spans.get(child).service() + " (network)";
+            }
+        }
+        String target = span.remoteService() != null ? span.remoteService() : span.name();
+        return span.service() + " -> " + target + " (untraced)";
+    }
+    
+    /**
+     * Resolves parents by span ID. When client and server share a span ID, as with B3 single-span
+     * joins, the server side is the client's child and the parent of everything below.
+     */
+    private void link() {
+        Map<String, Integer> byId = new HashMap<>();
+        Map<String, Integer> clients = new HashMap<>();
+        for (int i = 0; i < spans.size(); i++) {
+            SpanRecord span = spans.get(i);
+            if (span.isClient()) {
+                clients.putIfAbsent(span.id(), i);
+                byId.putIfAbsent(span.id(), i);
+            } else if (!byId.containsKey(span.id()) || spans.get(byId.get(span.id())).isClient()) {
+                byId.put(span.id(), i);
+            }
+        }
+        for (int i = 0; i < spans.size(); i++) {
+            SpanRecord span = spans.get(i);
+            Integer parent = span.isServer() && clients.containsKey(span.id())
+                ? clients.get(span.id())
+                : span.parentId() == null ? null : byId.get(span.parentId());
+            parents[i] = parent == null || parent == i ? -1 : parent;
+            if (parents[i] >= 0) {
+                children.get(parents[i]).add(i);
+            }
+        }
+    }
+    
+    private long computeSelfTime(int index) {
+        SpanRecord span = spans.get(index);
+        List<Integer> kids = new ArrayList<>(children.get(index));
+        kids.sort(Comparator.comparingLong(child -> spans.get(child).timestamp()));
+        long covered = 0;
+        long coveredUntil = span.timestamp();
+        for (int child : kids) {
+            long start = Math.max(coveredUntil, spans.get(child).timestamp());
+            long end = Math.min(span.end(), spans.get(child).end());
+            if (end > start) {
+                covered += end - start;
+                coveredUntil = end;
+            }
+        }
+        return Math.max(0, span.duration() - covered);
+    }
+    
+    /**
+     * Attributes the part of the span between {@code floor} and {@code limit}, so that skewed
+     * clocks cannot make children count time outside their parent.
+     */
+    private void walkCriticalPath(int index, long floor, long limit) {
+        SpanRecord span = spans.get(index);
+        Integer[] kids = children.get(index).toArray(new Integer[0]);
+        Arrays.sort(kids, Comparator.comparingLong((Integer child) -> spans.get(child).end()).reversed());
+        long start = Math.max(span.timestamp(), floor);
+        long cursor = Math.min(span.end(), limit);
+        for (int child : kids) {
+            SpanRecord childSpan = spans.get(child);
+            if (childSpan.timestamp() >= cursor || childSpan.end() <= start) {
+                continue;
+            }
+            long childEnd = Math.min(childSpan.end(), cursor);
+            criticalTimes[index] += cursor - childEnd;
+            walkCriticalPath(child, start, childEnd);
+            cursor = Math.max(start, childSpan.timestamp());
+        }
+        criticalTimes[index] += Math.max(0, cursor - start);
+    }
+}